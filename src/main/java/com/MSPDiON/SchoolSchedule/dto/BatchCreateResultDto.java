@@ -0,0 +1,18 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCreateResultDto {
+  private BatchMode mode;
+  private int created;
+  private int rejected;
+  private List<BatchItemResultDto> items;
+}
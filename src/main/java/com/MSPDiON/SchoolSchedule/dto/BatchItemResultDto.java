@@ -0,0 +1,20 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDto {
+  private int index;
+  private boolean accepted;
+  private ScheduleSlotDto slot;
+  private Map<String, String> errors;
+  private List<SlotViolationDto> violations;
+}
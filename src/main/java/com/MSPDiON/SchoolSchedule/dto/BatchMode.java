@@ -0,0 +1,6 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+public enum BatchMode {
+  ALL_OR_NOTHING, // zapis tylko, gdy wszystkie sloty są poprawne
+  BEST_EFFORT // zapis poprawnych slotów, odrzucenie pozostałych
+}
@@ -0,0 +1,16 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeWindowDto {
+  private int dayOfWeek;
+  private String startTime;
+  private String endTime;
+}
@@ -0,0 +1,25 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Konkretne (datowane) wystąpienie cyklicznego slotu. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccurrenceDto {
+  private Long slotId;
+  private String date;
+  private String startTime;
+  private String endTime;
+  private String title;
+
+  private Long therapistId;
+  private Long roomId;
+  private Long studentClassId;
+  private Set<Long> studentIds;
+}
@@ -0,0 +1,28 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tygodniowe obciążenie sali lub terapeuty. availableMinutes i utilization są null, gdy podmiot
+ * nie ma wpisów dostępności (sale nigdy ich nie mają).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceUtilizationDto {
+  private Long entityId;
+  private String name;
+
+  private int bookedMinutes;
+  private Integer availableMinutes;
+  private Double utilization;
+
+  private int peakConcurrency;
+  private int idleMinutes;
+  private List<FreeWindowDto> idleGaps;
+}
@@ -0,0 +1,23 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Zmiana slotu wysyłana strumieniem SSE; id podmiotów obejmują stan sprzed i po zmianie. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleChangeDto {
+  private String eventId;
+  private String type;
+  private Long slotId;
+
+  private Set<Long> therapistIds;
+  private Set<Long> roomIds;
+  private Set<Long> classIds;
+  private Set<Long> studentIds;
+}
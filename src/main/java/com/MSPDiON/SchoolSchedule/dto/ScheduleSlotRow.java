@@ -0,0 +1,20 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/** Płaski wiersz odczytu slotu: pola slotu i id jednego ucznia (null, gdy slot nie ma uczniów). */
+public record ScheduleSlotRow(
+    Long id,
+    String title,
+    Long therapistId,
+    Long roomId,
+    Long studentClassId,
+    Long studentId,
+    LocalTime startTime,
+    LocalTime endTime,
+    DayOfWeek dayOfWeek,
+    LocalDate validFrom,
+    LocalDate validTo,
+    boolean individual) {}
@@ -0,0 +1,19 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Naruszenie reguły walidacji slotu wraz z id kolidujących slotów (jeśli dotyczy). */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotViolationDto {
+  private String code;
+  private String field;
+  private String message;
+  private List<Long> conflictingSlotIds;
+}
@@ -0,0 +1,20 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolverRequestDto {
+  private List<TherapyDemandDto> demands;
+
+  private String validFrom; // yyyy-MM-dd
+  private String validTo; // opcjonalne, null = bez ograniczeń
+
+  private Integer timeLimitSeconds; // opcjonalne, domyślnie schedule.solver.time-limit-seconds
+}
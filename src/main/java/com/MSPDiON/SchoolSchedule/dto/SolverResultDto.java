@@ -0,0 +1,23 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolverResultDto {
+  private int requestedSessions;
+  private int placedSessions;
+  private long score;
+  private long iterations;
+  private int threads;
+  private long elapsedMillis;
+
+  private List<CreateScheduleSlotDto> slots;
+  private List<UnplacedDemandDto> unplaced;
+}
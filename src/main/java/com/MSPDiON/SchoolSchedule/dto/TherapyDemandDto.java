@@ -0,0 +1,20 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import com.MSPDiON.SchoolSchedule.model.TherapistRole;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Zapotrzebowanie ucznia, np. 2 x 45 min zajęć z logopedą (SPEECH_THERAPIST) w tygodniu. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TherapyDemandDto {
+  private Long studentId;
+  private TherapistRole role;
+  private int sessionsPerWeek;
+  private int durationMinutes;
+  private String title; // opcjonalne, domyślnie nazwa roli
+}
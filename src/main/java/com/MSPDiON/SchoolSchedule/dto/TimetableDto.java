@@ -0,0 +1,19 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Tygodniowy plan podmiotu: dzień tygodnia (1 = pon.) -> zajęcia posortowane po godzinie. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableDto {
+  private String entityType;
+  private Long entityId;
+  private Map<Integer, List<TimetableEntryDto>> days;
+}
@@ -0,0 +1,34 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableEntryDto {
+  private Long slotId;
+  private String title;
+
+  private int dayOfWeek;
+  private String startTime;
+  private String endTime;
+
+  private String validFrom;
+  private String validTo;
+
+  private Long therapistId;
+  private String therapistName;
+  private Long roomId;
+  private String roomName;
+  private Long studentClassId;
+  private String studentClassName;
+
+  private boolean individual;
+  private List<Long> studentIds;
+  private List<String> studentNames;
+}
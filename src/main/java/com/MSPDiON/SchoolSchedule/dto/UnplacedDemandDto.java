@@ -0,0 +1,18 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import com.MSPDiON.SchoolSchedule.model.TherapistRole;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnplacedDemandDto {
+  private Long studentId;
+  private TherapistRole role;
+  private int missingSessions;
+  private String reason;
+}
@@ -0,0 +1,17 @@
+package com.MSPDiON.SchoolSchedule.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UtilizationReportDto {
+  private String date;
+  private List<ResourceUtilizationDto> rooms;
+  private List<ResourceUtilizationDto> therapists;
+}
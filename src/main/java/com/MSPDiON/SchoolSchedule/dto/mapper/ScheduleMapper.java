@@ -5,20 +5,28 @@ import static com.MSPDiON.SchoolSchedule.utils.DateUtils.parseToLocalTime;
 
 import com.MSPDiON.SchoolSchedule.dto.CreateScheduleSlotDto;
 import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotRow;
+import com.MSPDiON.SchoolSchedule.dto.TimetableEntryDto;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
 import com.MSPDiON.SchoolSchedule.exception.ConflictException;
 import com.MSPDiON.SchoolSchedule.model.*;
-import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
-import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
 import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
-import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache.RoomRef;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache.StudentClassRef;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache.TherapistRef;
+import com.MSPDiON.SchoolSchedule.utils.DateUtils;
+import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -27,18 +35,17 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class ScheduleMapper {
 
-  private final TherapistRepository therapistRepository;
-  private final RoomRepository roomRepository;
-  private final StudentClassRepository studentClassRepository;
+  private final ReferenceDataCache referenceData;
   private final StudentRepository studentRepository;
 
   public ScheduleSlot toEntity(ScheduleSlotDto dto) {
-    Therapist therapist = therapistRepository.findById(dto.getTherapistId()).orElseThrow();
-    Room room = roomRepository.findById(dto.getRoomId()).orElseThrow();
+    Therapist therapist =
+        referenceData.therapist(dto.getTherapistId()).orElseThrow().toEntity();
+    Room room = referenceData.room(dto.getRoomId()).orElseThrow().toEntity();
 
     StudentClass studentClass = null;
     if (dto.getStudentClassId() != null) {
-      studentClass = studentClassRepository.findById(dto.getStudentClassId()).orElseThrow();
+      studentClass = referenceData.studentClass(dto.getStudentClassId()).orElseThrow().toEntity();
     }
 
     Set<Student> students = new HashSet<>();
@@ -89,19 +96,24 @@ public class ScheduleMapper {
 
     Therapist therapist = null;
     if (dto.getTherapistId() != null) {
-      therapist = therapistRepository.findById(dto.getTherapistId()).orElse(null);
+      therapist =
+          referenceData.therapist(dto.getTherapistId()).map(TherapistRef::toEntity).orElse(null);
       if (therapist == null) errors.put("therapist", "Nie znaleziono terapeuty");
     }
 
     Room room = null;
     if (dto.getRoomId() != null) {
-      room = roomRepository.findById(dto.getRoomId()).orElse(null);
+      room = referenceData.room(dto.getRoomId()).map(RoomRef::toEntity).orElse(null);
       if (room == null) errors.put("room", "Nie znaleziono sali");
     }
 
     StudentClass studentClass = null;
     if (dto.getStudentClassId() != null) {
-      studentClass = studentClassRepository.findById(dto.getStudentClassId()).orElse(null);
+      studentClass =
+          referenceData
+              .studentClass(dto.getStudentClassId())
+              .map(StudentClassRef::toEntity)
+              .orElse(null);
       if (studentClass == null) errors.put("studentClass", "Nie znaleziono klasy");
     }
 
@@ -119,18 +131,26 @@ public class ScheduleMapper {
       students.addAll(found);
     }
 
-    if (!errors.isEmpty()) {
-      throw new ConflictException(errors);
+    if (dto.getStartTime() == null) {
+      errors.put("startTime", "Godzina rozpoczęcia jest wymagana");
+    }
+    if (dto.getEndTime() == null) {
+      errors.put("endTime", "Godzina zakończenia jest wymagana");
     }
 
-    LocalTime start = parseToLocalTime(dto.getStartTime());
-    LocalTime end = parseToLocalTime(dto.getEndTime());
-
-    LocalDate validFrom = parseToLocalDate(dto.getValidFrom());
+    // Błąd formatu jest przypisywany do pola, którego dotyczy
+    LocalTime start =
+        parseField(dto.getStartTime(), DateUtils::parseToLocalTime, "startTime", errors);
+    LocalTime end = parseField(dto.getEndTime(), DateUtils::parseToLocalTime, "endTime", errors);
+    LocalDate validFrom =
+        parseField(dto.getValidFrom(), DateUtils::parseToLocalDate, "validFrom", errors);
     LocalDate validTo =
-        dto.getValidTo() != null && !dto.getValidTo().trim().isEmpty()
-            ? parseToLocalDate(dto.getValidTo())
-            : null;
+        parseField(dto.getValidTo(), DateUtils::parseToLocalDate, "validTo", errors);
+    DayOfWeek dayOfWeek = parseDayOfWeek(dto.getDayOfWeek(), errors);
+
+    if (!errors.isEmpty()) {
+      throw new ConflictException(errors);
+    }
 
     return ScheduleSlot.builder()
         .therapist(therapist)
@@ -142,11 +162,99 @@ public class ScheduleMapper {
         .endTime(end)
         .validFrom(validFrom)
         .validTo(validTo)
-        .dayOfWeek(DayOfWeek.of(dto.getDayOfWeek()))
+        .dayOfWeek(dayOfWeek)
         .isIndividual(students.size() == 1)
         .build();
   }
 
+  private static <T> T parseField(
+      String value, Function<String, T> parser, String field, Map<String, String> errors) {
+    if (value == null || value.trim().isEmpty()) return null;
+    try {
+      return parser.apply(value);
+    } catch (DateTimeException e) {
+      errors.put(field, "Niepoprawny format: " + value);
+      return null;
+    }
+  }
+
+  private static DayOfWeek parseDayOfWeek(int day, Map<String, String> errors) {
+    try {
+      return DayOfWeek.of(day);
+    } catch (DateTimeException e) {
+      errors.put("dayOfWeek", "Niepoprawny dzień tygodnia: " + day);
+      return null;
+    }
+  }
+
+  // ------------------------- ROWS -> DTO -------------------------
+  /** Składa wiersze (slot x uczeń), posortowane po id slotu, w DTO w jednym przebiegu. */
+  public List<ScheduleSlotDto> toDtos(List<ScheduleSlotRow> rows) {
+    List<ScheduleSlotDto> result = new ArrayList<>();
+    ScheduleSlotDto current = null;
+
+    for (ScheduleSlotRow row : rows) {
+      if (current == null || !current.getId().equals(row.id())) {
+        current =
+            ScheduleSlotDto.builder()
+                .id(row.id())
+                .title(row.title())
+                .therapistId(row.therapistId())
+                .roomId(row.roomId())
+                .studentClassId(row.studentClassId())
+                .studentIds(new HashSet<>())
+                .startTime(row.startTime().toString())
+                .endTime(row.endTime().toString())
+                .validFrom(row.validFrom().toString())
+                .validTo(row.validTo() != null ? row.validTo().toString() : null)
+                .dayOfWeek(row.dayOfWeek().getValue())
+                .individual(row.individual())
+                .build();
+        result.add(current);
+      }
+      if (row.studentId() != null) {
+        current.getStudentIds().add(row.studentId());
+        if (current.isIndividual() && current.getStudentId() == null) {
+          current.setStudentId(row.studentId());
+        }
+      }
+    }
+    return result;
+  }
+
+  // ------------------------- SNAPSHOT -> TIMETABLE -------------------------
+  /** Pozycja planu z nazwami z cache danych słownikowych. */
+  public TimetableEntryDto toTimetableEntry(ScheduleSlotSnapshot slot) {
+    List<Long> studentIds = slot.studentIds().stream().sorted().toList();
+
+    return TimetableEntryDto.builder()
+        .slotId(slot.id())
+        .title(slot.title())
+        .dayOfWeek(slot.dayOfWeek().getValue())
+        .startTime(slot.startTime().toString())
+        .endTime(slot.endTime().toString())
+        .validFrom(slot.validFrom().toString())
+        .validTo(slot.validTo() != null ? slot.validTo().toString() : null)
+        .therapistId(slot.therapistId())
+        .therapistName(
+            referenceData.therapist(slot.therapistId()).map(TherapistRef::fullName).orElse(null))
+        .roomId(slot.roomId())
+        .roomName(referenceData.room(slot.roomId()).map(RoomRef::name).orElse(null))
+        .studentClassId(slot.studentClassId())
+        .studentClassName(
+            referenceData
+                .studentClass(slot.studentClassId())
+                .map(StudentClassRef::name)
+                .orElse(null))
+        .individual(slot.individual())
+        .studentIds(studentIds)
+        .studentNames(
+            studentIds.stream()
+                .map(id -> referenceData.studentName(id).orElse("Nieznany"))
+                .toList())
+        .build();
+  }
+
   // ------------------------- ENTITY -> DTO -------------------------
   public ScheduleSlotDto toDto(ScheduleSlot slot) {
     Set<Long> studentIds =
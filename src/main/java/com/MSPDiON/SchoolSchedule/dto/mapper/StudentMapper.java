@@ -7,6 +7,7 @@ import com.MSPDiON.SchoolSchedule.model.Student;
 import com.MSPDiON.SchoolSchedule.model.StudentClass;
 import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -30,6 +31,12 @@ public class StudentMapper {
         .build();
   }
 
+  /** Wersja dla list: dostępności z mapy pogrupowanej po id ucznia. */
+  public StudentDto toDto(Student entity, Map<Long, List<Availability>> availabilitiesById) {
+    if (entity == null) return null;
+    return toDto(entity, availabilitiesById.getOrDefault(entity.getId(), List.of()));
+  }
+
   public Student toEntity(CreateStudentDto dto) {
     if (dto == null) return null;
 
@@ -5,6 +5,7 @@ import com.MSPDiON.SchoolSchedule.dto.TherapistDto;
 import com.MSPDiON.SchoolSchedule.model.Availability;
 import com.MSPDiON.SchoolSchedule.model.Therapist;
 import java.util.List;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -29,6 +30,12 @@ public class TherapistMapper {
         .build();
   }
 
+  /** Wersja dla list: dostępności z mapy pogrupowanej po id terapeuty. */
+  public TherapistDto toDto(Therapist entity, Map<Long, List<Availability>> availabilitiesById) {
+    if (entity == null) return null;
+    return toDto(entity, availabilitiesById.getOrDefault(entity.getId(), List.of()));
+  }
+
   public Therapist toEntity(CreateTherapistDto dto) {
     if (dto == null) return null;
     return Therapist.builder()
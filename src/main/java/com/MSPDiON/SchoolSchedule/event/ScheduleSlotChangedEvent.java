@@ -0,0 +1,28 @@
+package com.MSPDiON.SchoolSchedule.event;
+
+/**
+ * Zdarzenie publikowane przez ScheduleService po każdej zmianie slotu. {@code before} jest null dla
+ * nowych slotów, {@code after} jest null dla usuniętych.
+ */
+public record ScheduleSlotChangedEvent(
+    ChangeType type, Long slotId, ScheduleSlotSnapshot before, ScheduleSlotSnapshot after) {
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  public static ScheduleSlotChangedEvent created(ScheduleSlotSnapshot after) {
+    return new ScheduleSlotChangedEvent(ChangeType.CREATED, after.id(), null, after);
+  }
+
+  public static ScheduleSlotChangedEvent updated(
+      ScheduleSlotSnapshot before, ScheduleSlotSnapshot after) {
+    return new ScheduleSlotChangedEvent(ChangeType.UPDATED, after.id(), before, after);
+  }
+
+  public static ScheduleSlotChangedEvent deleted(ScheduleSlotSnapshot before) {
+    return new ScheduleSlotChangedEvent(ChangeType.DELETED, before.id(), before, null);
+  }
+}
@@ -0,0 +1,84 @@
+package com.MSPDiON.SchoolSchedule.event;
+
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Niemutowalna kopia slotu oderwana od kontekstu JPA - bezpieczna do przekazywania między wątkami
+ * i po zakończeniu transakcji.
+ */
+public record ScheduleSlotSnapshot(
+    Long id,
+    String title,
+    Long therapistId,
+    Long roomId,
+    Long studentClassId,
+    Set<Long> studentIds,
+    DayOfWeek dayOfWeek,
+    LocalTime startTime,
+    LocalTime endTime,
+    LocalDate validFrom,
+    LocalDate validTo,
+    boolean individual) {
+
+  public static ScheduleSlotSnapshot of(ScheduleSlot slot) {
+    Set<Long> studentIds =
+        slot.getStudents() == null
+            ? Set.of()
+            : slot.getStudents().stream()
+                .map(Student::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+
+    return new ScheduleSlotSnapshot(
+        slot.getId(),
+        slot.getTitle(),
+        slot.getTherapist() != null ? slot.getTherapist().getId() : null,
+        slot.getRoom() != null ? slot.getRoom().getId() : null,
+        slot.getStudentClass() != null ? slot.getStudentClass().getId() : null,
+        studentIds,
+        slot.getDayOfWeek(),
+        slot.getStartTime(),
+        slot.getEndTime(),
+        slot.getValidFrom(),
+        slot.getValidTo(),
+        slot.isIndividual());
+  }
+
+  public Set<Long> resourceIds(ResourceType type) {
+    return switch (type) {
+      case THERAPIST -> therapistId != null ? Set.of(therapistId) : Set.of();
+      case ROOM -> roomId != null ? Set.of(roomId) : Set.of();
+      case STUDENT -> studentIds;
+      case CLASS -> studentClassId != null ? Set.of(studentClassId) : Set.of();
+    };
+  }
+
+  public boolean isSameSlot(ScheduleSlotSnapshot other) {
+    return id != null && id.equals(other.id());
+  }
+
+  /** Okresy obowiązywania (validFrom - validTo, null = bezterminowo) mają część wspólną. */
+  public boolean overlapsValidity(ScheduleSlotSnapshot other) {
+    LocalDate thisTo = validTo != null ? validTo : LocalDate.MAX;
+    LocalDate otherTo = other.validTo() != null ? other.validTo() : LocalDate.MAX;
+    LocalDate thisFrom = validFrom != null ? validFrom : LocalDate.MIN;
+    LocalDate otherFrom = other.validFrom() != null ? other.validFrom() : LocalDate.MIN;
+    return !thisTo.isBefore(otherFrom) && !thisFrom.isAfter(otherTo);
+  }
+
+  /** Ten sam dzień tygodnia, nachodzące godziny i nachodzące okresy obowiązywania. */
+  public boolean overlaps(ScheduleSlotSnapshot other) {
+    return dayOfWeek == other.dayOfWeek()
+        && startTime.isBefore(other.endTime())
+        && endTime.isAfter(other.startTime())
+        && overlapsValidity(other);
+  }
+}
@@ -1,14 +1,28 @@
 package com.MSPDiON.SchoolSchedule.exception;
 
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import lombok.Getter;
 
 @Getter
 public class ConflictException extends RuntimeException {
   private final Map<String, String> fieldErrors;
+  private final List<SlotViolationDto> violations;
 
   public ConflictException(Map<String, String> fieldErrors) {
     super("Validation failed");
     this.fieldErrors = fieldErrors;
+    this.violations = List.of();
+  }
+
+  /** Komunikaty naruszeń dotyczących tego samego pola są łączone, a nie nadpisywane. */
+  public ConflictException(List<SlotViolationDto> violations) {
+    super("Validation failed");
+    this.violations = List.copyOf(violations);
+    this.fieldErrors = new LinkedHashMap<>();
+    violations.forEach(
+        v -> fieldErrors.merge(v.getField(), v.getMessage(), (a, b) -> a + ", " + b));
   }
 }
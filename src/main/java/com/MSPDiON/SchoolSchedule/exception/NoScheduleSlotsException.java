@@ -0,0 +1,8 @@
+package com.MSPDiON.SchoolSchedule.exception;
+
+/** Podmiot nie ma slotów, więc nie ma z czego wygenerować planu (400 jak IllegalArgument). */
+public class NoScheduleSlotsException extends IllegalArgumentException {
+  public NoScheduleSlotsException() {
+    super("Brak slotów do wygenerowania");
+  }
+}
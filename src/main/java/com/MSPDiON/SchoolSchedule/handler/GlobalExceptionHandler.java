@@ -9,15 +9,19 @@ import com.MSPDiON.SchoolSchedule.exception.StudentNotFoundException;
 import com.MSPDiON.SchoolSchedule.exception.TherapistNotFoundException;
 import com.MSPDiON.SchoolSchedule.model.ErrorResponse;
 import com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder;
+import com.MSPDiON.SchoolSchedule.utils.ScheduleConstraintViolations;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+@Slf4j
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -82,9 +86,35 @@ public class GlobalExceptionHandler {
 
     response.put("message", message);
     response.put("errors", fieldErrors);
+    if (!ex.getViolations().isEmpty()) {
+      response.put("violations", ex.getViolations());
+    }
     return ResponseEntity.badRequest().body(response);
   }
 
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public ResponseEntity<?> handleDataIntegrityViolation(
+      DataIntegrityViolationException ex, HttpServletRequest request) {
+    Map<String, String> fieldErrors = ScheduleConstraintViolations.toFieldErrors(ex);
+    if (!fieldErrors.isEmpty()) {
+      return handleConflict(new ConflictException(fieldErrors));
+    }
+
+    // Treść błędu bazy (nazwy tabel, ograniczeń, wartości) zostaje w logu
+    log.warn(
+        "Naruszenie integralności danych ({}): {}",
+        request.getRequestURI(),
+        ex.getMostSpecificCause().getMessage());
+    ErrorResponse error =
+        new ErrorResponse(
+            409,
+            "Operacja narusza spójność danych",
+            LocalDateTime.now(),
+            request.getRequestURI(),
+            "DataIntegrityViolationException");
+    return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+  }
+
   @ExceptionHandler(ResponseStatusException.class)
   public ResponseEntity<ErrorResponse> handleResponseStatusException(
       ResponseStatusException ex, HttpServletRequest request) {
@@ -4,7 +4,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import java.time.LocalTime;
+import java.util.Locale;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,4 +31,11 @@ public class Availability {
 
   private LocalTime startTime;
   private LocalTime endTime;
+
+  /** Typ zawsze wielkimi literami, żeby odczyty mogły porównywać entity_type wprost (indeks). */
+  @PrePersist
+  @PreUpdate
+  void normalizeEntityType() {
+    if (entityType != null) entityType = entityType.toUpperCase(Locale.ROOT);
+  }
 }
@@ -0,0 +1,19 @@
+package com.MSPDiON.SchoolSchedule.model;
+
+public enum ResourceType {
+  THERAPIST,
+  ROOM,
+  STUDENT,
+  CLASS;
+
+  /** Typ z parametru ścieżki (student | therapist | class | room). */
+  public static ResourceType fromEntityType(String entityType) {
+    return switch (entityType.toLowerCase()) {
+      case "student" -> STUDENT;
+      case "therapist" -> THERAPIST;
+      case "class" -> CLASS;
+      case "room" -> ROOM;
+      default -> throw new IllegalArgumentException("Nieznany entityType: " + entityType);
+    };
+  }
+}
@@ -1,10 +1,15 @@
 package com.MSPDiON.SchoolSchedule.repository;
 
 import com.MSPDiON.SchoolSchedule.model.Availability;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface AvailabilityRepository extends JpaRepository<Availability, Long> {
 
   List<Availability> findByEntityIdAndEntityType(Long entityId, String entityType);
+
+  List<Availability> findByEntityTypeAndEntityIdIn(String entityType, Collection<Long> entityIds);
+
+  List<Availability> findByEntityType(String entityType);
 }
@@ -0,0 +1,85 @@
+package com.MSPDiON.SchoolSchedule.repository;
+
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Zapis wielu slotów przez JDBC batch. Id są rezerwowane jednym zapytaniem do sekwencji, bo
+ * Hibernate nie grupuje insertów dla encji z GenerationType.IDENTITY.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduleSlotBatchRepository {
+
+  private static final int BATCH_SIZE = 100;
+
+  private static final String INSERT_SLOT =
+      """
+      INSERT INTO schedule_slot (id, title, therapist_id, room_id, start_time, end_time,
+                                 day_of_week, is_individual, valid_from, valid_to, student_class_id)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      """;
+
+  private static final String INSERT_SLOT_STUDENT =
+      "INSERT INTO schedule_slot_students (schedule_slot_id, student_id) VALUES (?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Zapisuje sloty wraz z uczniami i ustawia im wygenerowane id. */
+  public void insertAll(List<ScheduleSlot> slots) {
+    if (slots.isEmpty()) return;
+
+    List<Long> ids =
+        jdbcTemplate.queryForList(
+            "SELECT nextval('schedule_slot_id_seq') FROM generate_series(1, ?)",
+            Long.class,
+            slots.size());
+    for (int i = 0; i < slots.size(); i++) {
+      slots.get(i).setId(ids.get(i));
+    }
+
+    jdbcTemplate.batchUpdate(
+        INSERT_SLOT,
+        slots,
+        BATCH_SIZE,
+        (ps, slot) -> {
+          ps.setLong(1, slot.getId());
+          ps.setString(2, slot.getTitle());
+          ps.setLong(3, slot.getTherapist().getId());
+          ps.setLong(4, slot.getRoom().getId());
+          ps.setObject(5, slot.getStartTime());
+          ps.setObject(6, slot.getEndTime());
+          ps.setString(7, slot.getDayOfWeek().name());
+          ps.setBoolean(8, slot.isIndividual());
+          ps.setObject(9, slot.getValidFrom());
+          ps.setObject(10, slot.getValidTo(), Types.DATE);
+          ps.setObject(
+              11,
+              slot.getStudentClass() != null ? slot.getStudentClass().getId() : null,
+              Types.BIGINT);
+        });
+
+    List<long[]> links = new ArrayList<>();
+    for (ScheduleSlot slot : slots) {
+      if (slot.getStudents() == null) continue;
+      for (Student student : slot.getStudents()) {
+        links.add(new long[] {slot.getId(), student.getId()});
+      }
+    }
+
+    jdbcTemplate.batchUpdate(
+        INSERT_SLOT_STUDENT,
+        links,
+        BATCH_SIZE,
+        (ps, link) -> {
+          ps.setLong(1, link[0]);
+          ps.setLong(2, link[1]);
+        });
+  }
+}
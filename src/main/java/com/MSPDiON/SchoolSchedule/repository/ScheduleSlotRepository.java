@@ -1,9 +1,13 @@
 package com.MSPDiON.SchoolSchedule.repository;
 
+import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotRow;
 import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,41 +21,186 @@ public interface ScheduleSlotRepository extends JpaRepository<ScheduleSlot, Long
   @Query("SELECT s FROM ScheduleSlot s JOIN s.students st WHERE st.id = :studentId")
   List<ScheduleSlot> findByStudentId(@Param("studentId") Long studentId);
 
+  @Query("SELECT DISTINCT s.id FROM ScheduleSlot s JOIN s.students st WHERE st.id IN :studentIds")
+  List<Long> findIdsByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
   List<ScheduleSlot> findByStudentClassId(Long classId);
 
+  @Query("SELECT s.id FROM ScheduleSlot s WHERE s.therapist.id = :therapistId")
+  List<Long> findIdsByTherapistId(@Param("therapistId") Long therapistId);
+
+  @Query("SELECT s.id FROM ScheduleSlot s WHERE s.studentClass.id = :classId")
+  List<Long> findIdsByStudentClassId(@Param("classId") Long classId);
+
+  List<ScheduleSlot> findByRoomId(Long roomId);
+
+  @Query("SELECT DISTINCT s FROM ScheduleSlot s LEFT JOIN FETCH s.students")
+  List<ScheduleSlot> findAllWithStudents();
+
+  /** Sloty obowiązujące w danym dniu, w których bierze udział którykolwiek z uczestników. */
   @Query(
       """
-    SELECT s FROM ScheduleSlot s
-    WHERE s.therapist.id = :therapistId
-      AND s.dayOfWeek = :dayOfWeek
-      AND s.startTime < :endTime
-      AND s.endTime > :startTime
+      SELECT DISTINCT s FROM ScheduleSlot s
+      LEFT JOIN FETCH s.students
+      WHERE s.validFrom <= :date AND (s.validTo IS NULL OR s.validTo >= :date)
+        AND (s.therapist.id = :therapistId
+          OR s.room.id = :roomId
+          OR s.studentClass.id IN :classIds
+          OR s.id IN (SELECT s2.id FROM ScheduleSlot s2 JOIN s2.students st
+                      WHERE st.id IN :studentIds))
+      """)
+  List<ScheduleSlot> findActiveForParticipants(
+      @Param("date") LocalDate date,
+      @Param("therapistId") Long therapistId,
+      @Param("roomId") Long roomId,
+      @Param("classIds") Collection<Long> classIds,
+      @Param("studentIds") Collection<Long> studentIds);
+
+  /**
+   * Wszystkie sloty potrzebne do walidacji kandydata w jednym zapytaniu: sloty terapeuty i sali
+   * nachodzące godzinami oraz wszystkie sloty klasy i podanych uczniów w tym samym dniu. Zwraca
+   * tylko sloty, których okres obowiązywania nachodzi na [validFrom, validTo].
+   */
+  @Query(
+      """
+    SELECT DISTINCT s FROM ScheduleSlot s
+    JOIN FETCH s.therapist t
+    LEFT JOIN FETCH t.departments
+    JOIN FETCH s.room
+    LEFT JOIN FETCH s.studentClass
+    LEFT JOIN FETCH s.students
+    WHERE s.dayOfWeek = :dayOfWeek
+      AND s.validFrom <= :validTo
+      AND (s.validTo IS NULL OR s.validTo >= :validFrom)
+      AND ((s.therapist.id = :therapistId AND s.startTime < :endTime AND s.endTime > :startTime)
+        OR (s.room.id = :roomId AND s.startTime < :endTime AND s.endTime > :startTime)
+        OR s.studentClass.id = :classId
+        OR s.id IN (
+          SELECT s2.id FROM ScheduleSlot s2 JOIN s2.students st WHERE st.id IN :studentIds))
 """)
-  List<ScheduleSlot> findConflictsByTherapist(
-      Long therapistId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime);
+  List<ScheduleSlot> findValidationCandidates(
+      @Param("dayOfWeek") DayOfWeek dayOfWeek,
+      @Param("startTime") LocalTime startTime,
+      @Param("endTime") LocalTime endTime,
+      @Param("validFrom") LocalDate validFrom,
+      @Param("validTo") LocalDate validTo,
+      @Param("therapistId") Long therapistId,
+      @Param("roomId") Long roomId,
+      @Param("classId") Long classId,
+      @Param("studentIds") Collection<Long> studentIds);
 
+  /**
+   * Kandydaci do walidacji całej paczki slotów: sloty z dni paczki, nachodzące na jej łączny okres
+   * obowiązywania i dotyczące któregokolwiek z jej terapeutów, sal, klas lub uczniów. Dokładne
+   * dopasowanie do pojedynczego slotu odbywa się w pamięci.
+   */
   @Query(
       """
-    SELECT s FROM ScheduleSlot s
-    WHERE s.room.id = :roomId
-      AND s.dayOfWeek = :dayOfWeek
-      AND s.startTime < :endTime
-      AND s.endTime > :startTime
+    SELECT DISTINCT s FROM ScheduleSlot s
+    JOIN FETCH s.therapist t
+    LEFT JOIN FETCH t.departments
+    JOIN FETCH s.room
+    LEFT JOIN FETCH s.studentClass
+    LEFT JOIN FETCH s.students
+    WHERE s.dayOfWeek IN :days
+      AND s.validFrom <= :validTo
+      AND (s.validTo IS NULL OR s.validTo >= :validFrom)
+      AND (s.therapist.id IN :therapistIds
+        OR s.room.id IN :roomIds
+        OR s.studentClass.id IN :classIds
+        OR s.id IN (
+          SELECT s2.id FROM ScheduleSlot s2 JOIN s2.students st WHERE st.id IN :studentIds))
 """)
-  List<ScheduleSlot> findConflictsByRoom(
-      Long roomId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime);
+  List<ScheduleSlot> findBatchValidationCandidates(
+      @Param("days") Collection<DayOfWeek> days,
+      @Param("validFrom") LocalDate validFrom,
+      @Param("validTo") LocalDate validTo,
+      @Param("therapistIds") Collection<Long> therapistIds,
+      @Param("roomIds") Collection<Long> roomIds,
+      @Param("classIds") Collection<Long> classIds,
+      @Param("studentIds") Collection<Long> studentIds);
 
   @Query(
       """
-    SELECT s FROM ScheduleSlot s
-    JOIN s.students st
-    WHERE st.id = :studentId
-      AND s.dayOfWeek = :dayOfWeek
-      AND s.startTime < :endTime
-      AND s.endTime > :startTime
+    SELECT DISTINCT s FROM ScheduleSlot s
+    JOIN FETCH s.therapist t
+    LEFT JOIN FETCH t.departments
+    JOIN FETCH s.room
+    LEFT JOIN FETCH s.studentClass
+    LEFT JOIN FETCH s.students
+    WHERE s.id IN :ids
 """)
-  List<ScheduleSlot> findConflictsByStudent(
-      Long studentId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime);
+  List<ScheduleSlot> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /** Sloty jako płaskie wiersze (slot x uczeń) bez ładowania encji, posortowane po id. */
+  @Query(
+      """
+      SELECT new com.MSPDiON.SchoolSchedule.dto.ScheduleSlotRow(
+        s.id, s.title, t.id, r.id, c.id, st.id,
+        s.startTime, s.endTime, s.dayOfWeek, s.validFrom, s.validTo, s.isIndividual)
+      FROM ScheduleSlot s
+      JOIN s.therapist t
+      JOIN s.room r
+      LEFT JOIN s.studentClass c
+      LEFT JOIN s.students st
+      WHERE s.id IN :ids
+      ORDER BY s.id
+      """)
+  List<ScheduleSlotRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Wiersze wszystkich slotów spełniających filtry {@link #findPageIds}, bez listy id - dla
+   * odczytów bez limitu, gdzie lista id przekroczyłaby limit parametrów zapytania.
+   */
+  @Query(
+      """
+      SELECT new com.MSPDiON.SchoolSchedule.dto.ScheduleSlotRow(
+        s.id, s.title, t.id, r.id, c.id, st.id,
+        s.startTime, s.endTime, s.dayOfWeek, s.validFrom, s.validTo, s.isIndividual)
+      FROM ScheduleSlot s
+      JOIN s.therapist t
+      JOIN s.room r
+      LEFT JOIN s.studentClass c
+      LEFT JOIN s.students st
+      WHERE s.id > :after
+        AND (:date IS NULL
+          OR (s.validFrom <= :date AND (s.validTo IS NULL OR s.validTo >= :date)))
+        AND (:therapistId IS NULL OR t.id = :therapistId)
+        AND (:classId IS NULL OR c.id = :classId)
+        AND (:studentId IS NULL
+          OR EXISTS (SELECT 1 FROM s.students st2 WHERE st2.id = :studentId))
+      ORDER BY s.id
+      """)
+  List<ScheduleSlotRow> findRows(
+      @Param("date") LocalDate date,
+      @Param("therapistId") Long therapistId,
+      @Param("studentId") Long studentId,
+      @Param("classId") Long classId,
+      @Param("after") long after);
+
+  /**
+   * Id slotów po {@code after} (keyset), rosnąco, opcjonalnie tylko obowiązujących w dacie oraz
+   * należących do terapeuty, ucznia lub klasy (null = bez filtra).
+   */
+  @Query(
+      """
+      SELECT s.id FROM ScheduleSlot s
+      WHERE s.id > :after
+        AND (:date IS NULL
+          OR (s.validFrom <= :date AND (s.validTo IS NULL OR s.validTo >= :date)))
+        AND (:therapistId IS NULL OR s.therapist.id = :therapistId)
+        AND (:classId IS NULL OR s.studentClass.id = :classId)
+        AND (:studentId IS NULL
+          OR EXISTS (SELECT 1 FROM s.students st WHERE st.id = :studentId))
+      ORDER BY s.id
+      """)
+  List<Long> findPageIds(
+      @Param("date") LocalDate date,
+      @Param("therapistId") Long therapistId,
+      @Param("studentId") Long studentId,
+      @Param("classId") Long classId,
+      @Param("after") long after,
+      Limit limit);
 
   @Query(
       """
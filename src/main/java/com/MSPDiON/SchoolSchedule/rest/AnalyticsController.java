@@ -0,0 +1,24 @@
+package com.MSPDiON.SchoolSchedule.rest;
+
+import com.MSPDiON.SchoolSchedule.dto.UtilizationReportDto;
+import com.MSPDiON.SchoolSchedule.service.UtilizationAnalyticsService;
+import java.time.LocalDate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+  private final UtilizationAnalyticsService utilizationAnalyticsService;
+
+  /** Obciążenie sal i terapeutów w tygodniu obowiązującym w dacie (domyślnie dziś). */
+  @GetMapping("/utilization")
+  public UtilizationReportDto getUtilization(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate date) {
+    return utilizationAnalyticsService.getUtilization(date);
+  }
+}
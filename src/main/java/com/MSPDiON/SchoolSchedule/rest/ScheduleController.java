@@ -1,16 +1,35 @@
 package com.MSPDiON.SchoolSchedule.rest;
 
+import com.MSPDiON.SchoolSchedule.dto.BatchCreateResultDto;
+import com.MSPDiON.SchoolSchedule.dto.BatchMode;
 import com.MSPDiON.SchoolSchedule.dto.CreateScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.FreeWindowDto;
+import com.MSPDiON.SchoolSchedule.dto.OccurrenceDto;
 import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.TimetableDto;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.service.BulkExportService;
+import com.MSPDiON.SchoolSchedule.service.FreeWindowService;
+import com.MSPDiON.SchoolSchedule.service.OccurrenceService;
+import com.MSPDiON.SchoolSchedule.service.ScheduleQueryService;
 import com.MSPDiON.SchoolSchedule.service.ScheduleService;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
+import com.MSPDiON.SchoolSchedule.service.stream.ScheduleChangeStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/schedules")
@@ -18,41 +37,87 @@ import org.springframework.web.bind.annotation.*;
 public class ScheduleController {
 
   private final ScheduleService scheduleService;
+  private final ScheduleQueryService scheduleQueryService;
+  private final FreeWindowService freeWindowService;
+  private final ScheduleVersions versions;
+  private final ScheduleChangeStream changeStream;
+  private final OccurrenceService occurrenceService;
+  private final BulkExportService bulkExportService;
+  private final ObjectMapper objectMapper;
 
+  /**
+   * Sloty obowiązujące w dacie, stronicowane po id
+   *
+   * @param after id ostatniego slotu z poprzedniej strony
+   * @param limit rozmiar strony (brak = wszystkie)
+   */
   @GetMapping
   public List<ScheduleSlotDto> getAll(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate date,
+      @RequestParam(required = false) Long after,
+      @RequestParam(required = false) Integer limit) {
+    return scheduleQueryService.getAllScheduleSlots(date, after, limit);
+  }
+
+  /**
+   * Wspólne wolne okna wszystkich uczestników w tygodniu, z uwzględnieniem zajęć obowiązujących
+   * w podanym dniu
+   *
+   * @param duration minimalna długość okna w minutach
+   */
+  @GetMapping("/free-windows")
+  public List<FreeWindowDto> getFreeWindows(
+      @RequestParam(required = false) Long therapistId,
+      @RequestParam(required = false) List<Long> studentIds,
+      @RequestParam(required = false) Long classId,
+      @RequestParam(required = false) Long roomId,
+      @RequestParam int duration,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
           LocalDate date) {
-    return scheduleService.getAllScheduleSlots(date);
+    return freeWindowService.findFreeWindows(
+        therapistId, studentIds, classId, roomId, duration, date);
   }
 
   @GetMapping("/{id}")
   public ResponseEntity<ScheduleSlotDto> getById(@PathVariable Long id) {
-    return ResponseEntity.ok(scheduleService.getById(id));
+    return ResponseEntity.ok(scheduleQueryService.getById(id));
   }
 
   @GetMapping("/therapist/{id}")
   public List<ScheduleSlotDto> getByTherapist(
       @PathVariable Long id,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-          LocalDate date) {
-    return scheduleService.getScheduleForTherapist(id, date);
+          LocalDate date,
+      @RequestParam(required = false) Long after,
+      @RequestParam(required = false) Integer limit,
+      WebRequest request) {
+    if (request.checkNotModified(versions.etag(ResourceType.THERAPIST, id))) return null;
+    return scheduleQueryService.getScheduleForTherapist(id, date, after, limit);
   }
 
   @GetMapping("/student/{id}")
   public List<ScheduleSlotDto> getByStudent(
       @PathVariable Long id,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-          LocalDate date) {
-    return scheduleService.getScheduleForStudentDto(id, date);
+          LocalDate date,
+      @RequestParam(required = false) Long after,
+      @RequestParam(required = false) Integer limit,
+      WebRequest request) {
+    if (request.checkNotModified(versions.etag(ResourceType.STUDENT, id))) return null;
+    return scheduleQueryService.getScheduleForStudent(id, date, after, limit);
   }
 
   @GetMapping("/class/{id}")
   public List<ScheduleSlotDto> getByClass(
       @PathVariable Long id,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-          LocalDate date) {
-    return scheduleService.getScheduleForClassDto(id, date);
+          LocalDate date,
+      @RequestParam(required = false) Long after,
+      @RequestParam(required = false) Integer limit,
+      WebRequest request) {
+    if (request.checkNotModified(versions.etag(ResourceType.CLASS, id))) return null;
+    return scheduleQueryService.getScheduleForClass(id, date, after, limit);
   }
 
   @PutMapping("/{id}")
@@ -88,6 +153,22 @@ public class ScheduleController {
     scheduleService.deleteScheduleSlotForSingleStudent(id, studentId);
   }
 
+  /**
+   * Tworzy wiele slotów w jednej transakcji
+   *
+   * @param mode ALL_OR_NOTHING (domyślnie) | BEST_EFFORT
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<BatchCreateResultDto> createSlots(
+      @RequestBody List<CreateScheduleSlotDto> dtos,
+      @RequestParam(defaultValue = "ALL_OR_NOTHING") BatchMode mode) {
+    BatchCreateResultDto result = scheduleService.createScheduleSlots(dtos, mode);
+    if (mode == BatchMode.ALL_OR_NOTHING && result.getRejected() > 0) {
+      return ResponseEntity.badRequest().body(result);
+    }
+    return ResponseEntity.ok(result);
+  }
+
   @PostMapping("/{entityType}/{entityId}")
   public ResponseEntity<ScheduleSlotDto> createSlotForEntity(
       @PathVariable String entityType,
@@ -110,6 +191,100 @@ public class ScheduleController {
     return ResponseEntity.ok().build();
   }
 
+  /**
+   * Plany wszystkich podmiotów podanych typów jako jeden ZIP, generowane równolegle i zapisywane
+   * do odpowiedzi w miarę ukończenia.
+   *
+   * @param types student,therapist,class (domyślnie wszystkie)
+   */
+  @GetMapping("/export/all")
+  public ResponseEntity<StreamingResponseBody> exportAll(
+      @RequestParam(required = false) List<String> types) {
+    ScheduleService.GeneratedFile file = bulkExportService.exportAll(types);
+
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.fileName() + "\"")
+        .header("Access-Control-Expose-Headers", "Content-Disposition")
+        .contentType(MediaType.parseMediaType("application/zip"))
+        .body(file.content()::writeTo);
+  }
+
+  /**
+   * Datowane wystąpienia slotów w [from, to] jako NDJSON (jeden obiekt w linii), w kolejności dat.
+   * Bez entityType/entityId - cała szkoła.
+   */
+  @GetMapping(path = "/occurrences", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> getOccurrences(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+      @RequestParam(required = false) String entityType,
+      @RequestParam(required = false) Long entityId) {
+    Iterator<OccurrenceDto> occurrences =
+        occurrenceService.expand(from, to, entityType, entityId);
+
+    StreamingResponseBody body =
+        out -> {
+          while (occurrences.hasNext()) {
+            out.write(objectMapper.writeValueAsBytes(occurrences.next()));
+            out.write('\n');
+          }
+        };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType("application/x-ndjson"))
+        .body(body);
+  }
+
+  /**
+   * Strumień zmian slotów (SSE). Bez filtrów wysyła wszystkie zmiany, z filtrami tylko dotyczące
+   * któregokolwiek z podanych podmiotów.
+   *
+   * @param lastEventId wznowienie po zdarzeniu (nagłówek Last-Event-ID lub parametr)
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(
+      @RequestParam(required = false) Long therapistId,
+      @RequestParam(required = false) Long studentId,
+      @RequestParam(required = false) Long classId,
+      @RequestParam(required = false) Long roomId,
+      @RequestParam(required = false) String lastEventId,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+    Map<ResourceType, Long> filters = new EnumMap<>(ResourceType.class);
+    if (therapistId != null) filters.put(ResourceType.THERAPIST, therapistId);
+    if (studentId != null) filters.put(ResourceType.STUDENT, studentId);
+    if (classId != null) filters.put(ResourceType.CLASS, classId);
+    if (roomId != null) filters.put(ResourceType.ROOM, roomId);
+
+    return changeStream.subscribe(
+        filters, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+  }
+
+  /** Tygodniowy plan z nazwami, z modelu odczytu (therapist | student | class | room). */
+  @GetMapping("/{entityType}/{entityId}/timetable")
+  public TimetableDto getTimetable(
+      @PathVariable String entityType,
+      @PathVariable Long entityId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate date,
+      WebRequest request) {
+    ResourceType type = ResourceType.fromEntityType(entityType);
+    if (request.checkNotModified(versions.etag(type, entityId))) return null;
+    return scheduleQueryService.getTimetable(entityType, entityId, date);
+  }
+
+  /**
+   * Zajęte minuty jednostki w poszczególnych dniach tygodnia (1 = poniedziałek)
+   *
+   * @param entityType student | therapist | class | room
+   */
+  @GetMapping("/{entityType}/{entityId}/occupied-minutes")
+  public Map<Integer, Integer> getOccupiedMinutes(
+      @PathVariable String entityType,
+      @PathVariable Long entityId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate date) {
+    return scheduleService.getOccupiedMinutes(entityType, entityId, date);
+  }
+
   /**
    * Pobiera plan lekcji dla jednostki (student/therapist/class)
    *
@@ -118,7 +293,7 @@ public class ScheduleController {
    * @param fileNameSuffix opcjonalny ciąg, który użytkownik chce dodać do nazwy pliku
    */
   @GetMapping("/{entityType}/{entityId}/download")
-  public ResponseEntity<byte[]> downloadSchedule(
+  public ResponseEntity<StreamingResponseBody> downloadSchedule(
       @PathVariable String entityType,
       @PathVariable Long entityId,
       @RequestParam(required = false, defaultValue = "") String fileNameSuffix)
@@ -131,6 +306,6 @@ public class ScheduleController {
         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.fileName() + "\"")
         .header("Access-Control-Expose-Headers", "Content-Disposition")
         .contentType(MediaType.APPLICATION_OCTET_STREAM)
-        .body(file.content());
+        .body(file.content()::writeTo);
   }
 }
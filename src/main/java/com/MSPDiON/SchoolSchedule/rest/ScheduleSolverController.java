@@ -0,0 +1,36 @@
+package com.MSPDiON.SchoolSchedule.rest;
+
+import com.MSPDiON.SchoolSchedule.dto.BatchCreateResultDto;
+import com.MSPDiON.SchoolSchedule.dto.CreateScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.SolverRequestDto;
+import com.MSPDiON.SchoolSchedule.dto.SolverResultDto;
+import com.MSPDiON.SchoolSchedule.service.solver.ScheduleSolverService;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/schedules/solver")
+@RequiredArgsConstructor
+public class ScheduleSolverController {
+
+  private final ScheduleSolverService solverService;
+
+  /** Układa zajęcia dla podanych zapotrzebowań bez zapisywania wyniku */
+  @PostMapping("/preview")
+  public SolverResultDto preview(@RequestBody SolverRequestDto request) {
+    return solverService.preview(request);
+  }
+
+  /** Zapisuje sloty zwrócone przez /preview w jednej transakcji (ALL_OR_NOTHING) */
+  @PostMapping("/commit")
+  public ResponseEntity<BatchCreateResultDto> commit(
+      @RequestBody List<CreateScheduleSlotDto> slots) {
+    BatchCreateResultDto result = solverService.commit(slots);
+    if (result.getRejected() > 0) {
+      return ResponseEntity.badRequest().body(result);
+    }
+    return ResponseEntity.ok(result);
+  }
+}
@@ -5,10 +5,12 @@ import com.MSPDiON.SchoolSchedule.dto.CreateStudentDto;
 import com.MSPDiON.SchoolSchedule.dto.StudentDto;
 import com.MSPDiON.SchoolSchedule.service.AvailabilityService;
 import com.MSPDiON.SchoolSchedule.service.StudentService;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/students")
@@ -17,6 +19,7 @@ public class StudentController {
 
   private final StudentService studentService;
   private final AvailabilityService availabilityService;
+  private final ScheduleVersions versions;
 
   @PostMapping
   public StudentDto create(@RequestBody CreateStudentDto dto) {
@@ -24,17 +27,20 @@ public class StudentController {
   }
 
   @GetMapping
-  public List<StudentDto> getAll() {
+  public List<StudentDto> getAll(WebRequest request) {
+    if (request.checkNotModified(versions.globalEtag())) return null;
     return studentService.getAll();
   }
 
   @GetMapping("/sorted")
-  public List<StudentDto> getAllSortedByLastName() {
+  public List<StudentDto> getAllSortedByLastName(WebRequest request) {
+    if (request.checkNotModified(versions.globalEtag())) return null;
     return studentService.getAllSortedByLastName();
   }
 
   @GetMapping("/by-class/{classId}")
-  public List<StudentDto> getAllByClassId(@PathVariable Long classId) {
+  public List<StudentDto> getAllByClassId(@PathVariable Long classId, WebRequest request) {
+    if (request.checkNotModified(versions.globalEtag())) return null;
     return studentService.getAllByClassId(classId);
   }
 
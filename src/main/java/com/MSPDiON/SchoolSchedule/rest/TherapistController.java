@@ -5,10 +5,12 @@ import com.MSPDiON.SchoolSchedule.dto.CreateTherapistDto;
 import com.MSPDiON.SchoolSchedule.dto.TherapistDto;
 import com.MSPDiON.SchoolSchedule.service.AvailabilityService;
 import com.MSPDiON.SchoolSchedule.service.TherapistService;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/therapists")
@@ -17,9 +19,11 @@ public class TherapistController {
 
   private final TherapistService therapistService;
   private final AvailabilityService availabilityService;
+  private final ScheduleVersions versions;
 
   @GetMapping
-  public List<TherapistDto> getAll() {
+  public List<TherapistDto> getAll(WebRequest request) {
+    if (request.checkNotModified(versions.globalEtag())) return null;
     return therapistService.getAll();
   }
 
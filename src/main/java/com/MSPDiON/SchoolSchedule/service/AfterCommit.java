@@ -0,0 +1,29 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Odkłada unieważnienie cache i podbicie wersji do commitu transakcji. Wykonane wcześniej
+ * pozwoliłoby równoległemu odczytowi zapamiętać stare dane (np. nazwę usuwanego ucznia) pod już
+ * nowym ETagiem.
+ */
+final class AfterCommit {
+
+  private AfterCommit() {}
+
+  /** Po commicie bieżącej transakcji; poza transakcją od razu. Przy wycofaniu nic nie robi. */
+  static void run(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+}
@@ -8,9 +8,14 @@ import com.MSPDiON.SchoolSchedule.model.Availability;
 import com.MSPDiON.SchoolSchedule.model.Student;
 import com.MSPDiON.SchoolSchedule.repository.AvailabilityRepository;
 import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindowCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +26,8 @@ public class AvailabilityService {
   private final AvailabilityRepository availabilityRepository;
   private final StudentRepository studentRepository;
   private final AvailabilityMapper availabilityMapper;
+  private final AvailabilityWindowCache availabilityCache;
+  private final ScheduleVersions versions;
 
   public List<AvailabilityDto> getAvailabilities(Long entityId, String entityType) {
     List<Availability> availabilities =
@@ -49,6 +56,14 @@ public class AvailabilityService {
     return availabilityMapper.toDtoList(availabilities);
   }
 
+  /** Dostępności wielu encji jednego typu jednym zapytaniem, pogrupowane po entityId. */
+  public Map<Long, List<Availability>> getGroupedByEntityIds(
+      String entityType, Collection<Long> entityIds) {
+    if (entityIds.isEmpty()) return Map.of();
+    return availabilityRepository.findByEntityTypeAndEntityIdIn(entityType, entityIds).stream()
+        .collect(Collectors.groupingBy(Availability::getEntityId));
+  }
+
   // Dodanie nowej dostępności
   public AvailabilityDto addAvailability(Long entityId, String entityType, AvailabilityDto dto) {
     validateAvailabilityConflict(entityId, entityType, dto, null);
@@ -63,6 +78,8 @@ public class AvailabilityService {
             .build();
 
     availabilityRepository.save(newAvailability);
+    availabilityCache.refresh(entityType, entityId);
+    versions.bump(entityType, entityId);
     return availabilityMapper.toDto(newAvailability);
   }
 
@@ -81,6 +98,8 @@ public class AvailabilityService {
     existing.setEndTime(LocalTime.parse(dto.getEndTime()));
 
     availabilityRepository.save(existing);
+    availabilityCache.refresh(existing.getEntityType(), existing.getEntityId());
+    versions.bump(existing.getEntityType(), existing.getEntityId());
     return availabilityMapper.toDto(existing);
   }
 
@@ -92,6 +111,8 @@ public class AvailabilityService {
             .orElseThrow(() -> new AvailabilityNotFoundException(availabilityId));
 
     availabilityRepository.delete(existing);
+    availabilityCache.refresh(existing.getEntityType(), existing.getEntityId());
+    versions.bump(existing.getEntityType(), existing.getEntityId());
   }
 
   // Walidacja konfliktu godzin
@@ -0,0 +1,197 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import com.MSPDiON.SchoolSchedule.exception.NoScheduleSlotsException;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.model.StudentClass;
+import com.MSPDiON.SchoolSchedule.model.Therapist;
+import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.ScheduleService.GeneratedFile;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Eksport planów całej szkoły jako jeden ZIP. Skoroszyty powstają równolegle na wirtualnych
+ * wątkach, a do archiwum trafiają w kolejności ukończenia. Semafor ogranicza zarówno liczbę
+ * generowanych naraz plików, jak i gotowych, czekających na zapis - w pamięci jest ich najwyżej
+ * {@code schedule.export.bulk-concurrency}.
+ *
+ * <p>Każdy generowany plik zajmuje na czas odczytu połączenie z puli bazy, dlatego współbieżność
+ * jest przycinana do rozmiaru puli Hikari pomniejszonego o {@link #RESERVED_CONNECTIONS}, żeby
+ * eksport nie zagłodził zwykłych żądań.
+ */
+@Slf4j
+@Service
+public class BulkExportService {
+
+  private static final List<String> ALL_TYPES = List.of("student", "therapist", "class");
+
+  // Połączenia z puli zostawiane dla pozostałych żądań podczas eksportu
+  static final int RESERVED_CONNECTIONS = 4;
+
+  private final ScheduleService scheduleService;
+  private final StudentRepository studentRepository;
+  private final TherapistRepository therapistRepository;
+  private final StudentClassRepository studentClassRepository;
+  private final int concurrency;
+
+  public BulkExportService(
+      ScheduleService scheduleService,
+      StudentRepository studentRepository,
+      TherapistRepository therapistRepository,
+      StudentClassRepository studentClassRepository,
+      @Value("${schedule.export.bulk-concurrency:4}") int concurrency,
+      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+    this.scheduleService = scheduleService;
+    this.studentRepository = studentRepository;
+    this.therapistRepository = therapistRepository;
+    this.studentClassRepository = studentClassRepository;
+    int limit = Math.max(1, poolSize - RESERVED_CONNECTIONS);
+    if (concurrency > limit) {
+      log.warn(
+          "schedule.export.bulk-concurrency={} przekracza pulę połączeń ({}), używam {}",
+          concurrency,
+          poolSize,
+          limit);
+    }
+    this.concurrency = Math.max(1, Math.min(concurrency, limit));
+  }
+
+  /**
+   * Lista podmiotów jest ustalana od razu, pliki powstają dopiero przy zapisie odpowiedzi.
+   *
+   * @param types student | therapist | class; puste = wszystkie
+   */
+  public GeneratedFile exportAll(List<String> types) {
+    List<Target> targets = new ArrayList<>();
+    for (String type : normalize(types)) {
+      targets.addAll(targetsOf(type));
+    }
+    String fileName = "PlanyLekcji_" + LocalDate.now() + ".zip";
+    return new GeneratedFile(fileName, out -> writeZip(targets, out));
+  }
+
+  private void writeZip(List<Target> targets, OutputStream out) throws IOException {
+    Semaphore permits = new Semaphore(concurrency);
+    BlockingQueue<Result> completed = new LinkedBlockingQueue<>();
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      executor.submit(
+          () -> {
+            for (Target target : targets) {
+              permits.acquire();
+              executor.submit(
+                  () -> {
+                    Result result = new Result(target, null, null);
+                    try {
+                      result = generate(target);
+                    } finally {
+                      // Także przy Error: pętla zapisu czeka na dokładnie jeden wynik na podmiot
+                      completed.add(result);
+                    }
+                  });
+            }
+            return null;
+          });
+
+      Set<String> entryNames = new HashSet<>();
+      for (int i = 0; i < targets.size(); i++) {
+        Result result = completed.take();
+        try {
+          if (result.content() != null) {
+            zip.putNextEntry(new ZipEntry(uniqueName(result, entryNames)));
+            zip.write(result.content());
+            zip.closeEntry();
+          }
+        } finally {
+          permits.release();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Przerwano eksport planów", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Result generate(Target target) {
+    try {
+      GeneratedFile file =
+          scheduleService.generateScheduleForBulkExport(target.type(), target.id());
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      file.content().writeTo(buffer);
+      return new Result(target, file.fileName(), buffer.toByteArray());
+    } catch (NoScheduleSlotsException e) {
+      // Podmiot bez slotów - pomijany, tak jak przy pojedynczym pobraniu
+      return new Result(target, null, null);
+    } catch (Exception e) {
+      log.warn("Nie udało się wygenerować planu {} {}", target.type(), target.id(), e);
+      return new Result(target, null, null);
+    }
+  }
+
+  // Katalog per typ; powtórzona nazwa (np. dwóch uczniów o tym samym nazwisku) dostaje id
+  private static String uniqueName(Result result, Set<String> used) {
+    String name = result.target().type() + "/" + result.fileName();
+    if (!used.add(name)) {
+      name = name.replaceFirst("\\.xlsx$", "_" + result.target().id() + ".xlsx");
+      used.add(name);
+    }
+    return name;
+  }
+
+  private List<Target> targetsOf(String type) {
+    return switch (type) {
+      case "student" -> studentRepository.findAll().stream()
+          .map(Student::getId)
+          .map(id -> new Target(type, id))
+          .toList();
+      case "therapist" -> therapistRepository.findAll().stream()
+          .map(Therapist::getId)
+          .map(id -> new Target(type, id))
+          .toList();
+      case "class" -> studentClassRepository.findAll().stream()
+          .map(StudentClass::getId)
+          .map(id -> new Target(type, id))
+          .toList();
+      default -> throw new IllegalArgumentException("Nieznany entityType: " + type);
+    };
+  }
+
+  private static Set<String> normalize(List<String> types) {
+    if (types == null || types.isEmpty()) return new LinkedHashSet<>(ALL_TYPES);
+    Set<String> normalized = new LinkedHashSet<>();
+    for (String type : types) {
+      String t = type.trim().toLowerCase();
+      if (!ALL_TYPES.contains(t)) {
+        throw new IllegalArgumentException("Nieznany entityType: " + type);
+      }
+      normalized.add(t);
+    }
+    return normalized;
+  }
+
+  private record Target(String type, Long id) {}
+
+  private record Result(Target target, String fileName, byte[] content) {}
+}
@@ -0,0 +1,213 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import com.MSPDiON.SchoolSchedule.dto.FreeWindowDto;
+import com.MSPDiON.SchoolSchedule.exception.StudentClassNotFoundException;
+import com.MSPDiON.SchoolSchedule.exception.StudentNotFoundException;
+import com.MSPDiON.SchoolSchedule.exception.TherapistNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindowCache;
+import com.MSPDiON.SchoolSchedule.service.index.OccupancyBitmapCache;
+import com.MSPDiON.SchoolSchedule.utils.WeekMask;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Wyszukuje wspólne wolne okna terapeuty, uczniów (także całej klasy) i sali. Każdy uczestnik
+ * dostaje maskę bitową tygodnia (dostępność minus zajęcia obowiązujące w danym dniu), a wynik to
+ * AND wszystkich masek. Dostępność pochodzi z AvailabilityWindowCache, tej samej co w walidacji
+ * slotów (AvailabilityWindowRule, StudentPresenceRule), więc znalezione okno przejdzie walidację
+ * dostępności. Zajętość pochodzi z OccupancyBitmapCache; zapytanie do bazy jest wykonywane tylko,
+ * gdy mapy nie są jeszcze zbudowane.
+ */
+@Service
+@RequiredArgsConstructor
+public class FreeWindowService {
+
+  // Zastępuje pustą listę w klauzuli IN (id w bazie są dodatnie)
+  private static final Set<Long> NO_IDS = Set.of(0L);
+
+  private final ScheduleSlotRepository scheduleSlotRepository;
+  private final AvailabilityWindowCache availabilityCache;
+  private final StudentRepository studentRepository;
+  private final StudentClassRepository studentClassRepository;
+  private final TherapistRepository therapistRepository;
+  private final OccupancyBitmapCache occupancyCache;
+
+  public List<FreeWindowDto> findFreeWindows(
+      Long therapistId,
+      List<Long> studentIds,
+      Long classId,
+      Long roomId,
+      int durationMinutes,
+      LocalDate date) {
+    if (durationMinutes <= 0) {
+      throw new IllegalArgumentException("Czas trwania musi być dodatni");
+    }
+    LocalDate day = date != null ? date : LocalDate.now();
+
+    List<Student> students = loadStudents(studentIds, classId);
+    if (therapistId == null && students.isEmpty() && roomId == null) {
+      throw new IllegalArgumentException("Podaj co najmniej jednego uczestnika");
+    }
+
+    Set<Long> ids = students.stream().map(Student::getId).collect(Collectors.toSet());
+    Set<Long> classIds = new HashSet<>();
+    students.stream().map(this::classIdOf).filter(Objects::nonNull).forEach(classIds::add);
+
+    List<ScheduleSlot> slots =
+        occupancyCache.isReady()
+            ? List.of()
+            : scheduleSlotRepository.findActiveForParticipants(
+                day,
+                therapistId,
+                roomId,
+                classIds.isEmpty() ? NO_IDS : classIds,
+                ids.isEmpty() ? NO_IDS : ids);
+
+    WeekMask common = WeekMask.allFree();
+    if (therapistId != null) common.and(therapistMask(therapistId, slots, day));
+    if (roomId != null) common.and(roomMask(roomId, slots, day));
+    for (Student student : students) {
+      common.and(studentMask(student, slots, day));
+    }
+
+    List<FreeWindowDto> result = new ArrayList<>();
+    for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+      for (WeekMask.Window window : common.windows(dayOfWeek, durationMinutes)) {
+        result.add(
+            FreeWindowDto.builder()
+                .dayOfWeek(window.dayOfWeek())
+                .startTime(window.start().toString())
+                .endTime(window.end().toString())
+                .build());
+      }
+    }
+    return result;
+  }
+
+  private List<Student> loadStudents(List<Long> studentIds, Long classId) {
+    Set<Long> requested = new LinkedHashSet<>();
+    if (studentIds != null) requested.addAll(studentIds);
+
+    List<Student> students = new ArrayList<>(studentRepository.findAllById(requested));
+    Set<Long> found = students.stream().map(Student::getId).collect(Collectors.toSet());
+    requested.stream()
+        .filter(id -> !found.contains(id))
+        .findFirst()
+        .ifPresent(
+            id -> {
+              throw new StudentNotFoundException(id);
+            });
+
+    if (classId != null) {
+      if (!studentClassRepository.existsById(classId)) {
+        throw new StudentClassNotFoundException(classId);
+      }
+      studentRepository.findByStudentClassId(classId).stream()
+          .filter(s -> found.add(s.getId()))
+          .forEach(students::add);
+    }
+    return students;
+  }
+
+  private WeekMask therapistMask(Long therapistId, List<ScheduleSlot> slots, LocalDate day) {
+    if (!therapistRepository.existsById(therapistId)) {
+      throw new TherapistNotFoundException(therapistId);
+    }
+    WeekMask mask = availabilityCache.get(ResourceType.THERAPIST, therapistId).toWeekMask();
+    occupy(
+        mask,
+        ResourceType.THERAPIST,
+        therapistId,
+        day,
+        slots,
+        s -> s.getTherapist() != null && therapistId.equals(s.getTherapist().getId()));
+    return mask;
+  }
+
+  private WeekMask roomMask(Long roomId, List<ScheduleSlot> slots, LocalDate day) {
+    WeekMask mask = WeekMask.allFree();
+    occupy(
+        mask,
+        ResourceType.ROOM,
+        roomId,
+        day,
+        slots,
+        s -> s.getRoom() != null && roomId.equals(s.getRoom().getId()));
+    return mask;
+  }
+
+  // Dostępność ucznia przycięta do godzin obecności (gdy obie są znane, jak w StudentPresenceRule)
+  private WeekMask studentMask(Student student, List<ScheduleSlot> slots, LocalDate day) {
+    WeekMask mask = availabilityCache.get(ResourceType.STUDENT, student.getId()).toWeekMask();
+    if (student.getArrivalTime() != null && student.getDepartureTime() != null) {
+      WeekMask presence = new WeekMask();
+      for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+        presence.free(dayOfWeek, student.getArrivalTime(), student.getDepartureTime());
+      }
+      mask.and(presence);
+    }
+
+    occupy(
+        mask,
+        ResourceType.STUDENT,
+        student.getId(),
+        day,
+        slots,
+        s -> s.getStudents().stream().anyMatch(st -> st.getId().equals(student.getId())));
+
+    Long classId = classIdOf(student);
+    if (classId != null) {
+      occupy(
+          mask,
+          ResourceType.CLASS,
+          classId,
+          day,
+          slots,
+          s -> s.getStudentClass() != null && classId.equals(s.getStudentClass().getId()));
+    }
+    return mask;
+  }
+
+  private Long classIdOf(Student student) {
+    return student.getStudentClass() != null ? student.getStudentClass().getId() : null;
+  }
+
+  // Z map zajętości, a gdy nie są gotowe - z wczytanych slotów spełniających warunek
+  private void occupy(
+      WeekMask mask,
+      ResourceType type,
+      Long resourceId,
+      LocalDate day,
+      List<ScheduleSlot> slots,
+      Predicate<ScheduleSlot> belongs) {
+    if (occupancyCache.isReady()) {
+      for (DayOfWeek dow : DayOfWeek.values()) {
+        occupancyCache
+            .occupied(type, resourceId, dow, day)
+            .ifPresent(bits -> mask.andNot(dow.getValue(), bits));
+      }
+      return;
+    }
+    slots.stream()
+        .filter(belongs)
+        .forEach(
+            s -> mask.occupy(s.getDayOfWeek().getValue(), s.getStartTime(), s.getEndTime()));
+  }
+}
@@ -0,0 +1,134 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import com.MSPDiON.SchoolSchedule.dto.OccurrenceDto;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.service.index.TimetableReadModel;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rozwija cotygodniowe sloty w datowane wystąpienia. Każdy slot to kursor po kolejnych datach
+ * (co 7 dni), a kursory są scalane kopcem po (data, godzina, id slotu), więc wynik powstaje
+ * leniwie i w pamięci jest naraz tylko jedno wystąpienie na slot.
+ */
+@Service
+@RequiredArgsConstructor
+public class OccurrenceService {
+
+  private final TimetableReadModel timetableReadModel;
+
+  /**
+   * Wystąpienia w [from, to] w kolejności dat. Parametry są sprawdzane od razu, same wystąpienia
+   * powstają przy iteracji.
+   *
+   * @param entityType student | therapist | class | room albo null (cała szkoła)
+   */
+  public Iterator<OccurrenceDto> expand(
+      LocalDate from, LocalDate to, String entityType, Long entityId) {
+    if (from == null || to == null) {
+      throw new IllegalArgumentException("Parametry from i to są wymagane");
+    }
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("Data from nie może być późniejsza niż to");
+    }
+    if ((entityType == null) != (entityId == null)) {
+      throw new IllegalArgumentException("entityType i entityId trzeba podać razem");
+    }
+
+    Collection<ScheduleSlotSnapshot> slots =
+        entityType == null
+            ? timetableReadModel.allSlots()
+            : timetableReadModel
+                .timetable(ResourceType.fromEntityType(entityType), entityId)
+                .values()
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+
+    PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, slots.size()), Cursor.ORDER);
+    for (ScheduleSlotSnapshot slot : slots) {
+      Cursor cursor = Cursor.start(slot, from, to);
+      if (cursor != null) queue.add(cursor);
+    }
+    return new MergedOccurrences(queue);
+  }
+
+  private static OccurrenceDto toDto(ScheduleSlotSnapshot slot, LocalDate date) {
+    return OccurrenceDto.builder()
+        .slotId(slot.id())
+        .date(date.toString())
+        .startTime(slot.startTime().toString())
+        .endTime(slot.endTime().toString())
+        .title(slot.title())
+        .therapistId(slot.therapistId())
+        .roomId(slot.roomId())
+        .studentClassId(slot.studentClassId())
+        .studentIds(slot.studentIds())
+        .build();
+  }
+
+  /** Następne wystąpienie jednego slotu. */
+  private static final class Cursor {
+
+    static final Comparator<Cursor> ORDER =
+        Comparator.comparing((Cursor c) -> c.date)
+            .thenComparing(c -> c.slot.startTime())
+            .thenComparing(c -> c.slot.id());
+
+    final ScheduleSlotSnapshot slot;
+    final LocalDate last;
+    LocalDate date;
+
+    private Cursor(ScheduleSlotSnapshot slot, LocalDate first, LocalDate last) {
+      this.slot = slot;
+      this.date = first;
+      this.last = last;
+    }
+
+    /** Kursor na pierwszym wystąpieniu w zakresie albo null, gdy go nie ma. */
+    static Cursor start(ScheduleSlotSnapshot slot, LocalDate from, LocalDate to) {
+      LocalDate start = slot.validFrom().isAfter(from) ? slot.validFrom() : from;
+      LocalDate end = slot.validTo() != null && slot.validTo().isBefore(to) ? slot.validTo() : to;
+      LocalDate first = start.with(TemporalAdjusters.nextOrSame(slot.dayOfWeek()));
+      return first.isAfter(end) ? null : new Cursor(slot, first, end);
+    }
+
+    boolean advance() {
+      date = date.plusWeeks(1);
+      return !date.isAfter(last);
+    }
+  }
+
+  private static final class MergedOccurrences implements Iterator<OccurrenceDto> {
+
+    private final PriorityQueue<Cursor> queue;
+
+    MergedOccurrences(PriorityQueue<Cursor> queue) {
+      this.queue = queue;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !queue.isEmpty();
+    }
+
+    @Override
+    public OccurrenceDto next() {
+      Cursor cursor = queue.poll();
+      if (cursor == null) throw new NoSuchElementException();
+
+      OccurrenceDto occurrence = toDto(cursor.slot, cursor.date);
+      if (cursor.advance()) queue.add(cursor);
+      return occurrence;
+    }
+  }
+}
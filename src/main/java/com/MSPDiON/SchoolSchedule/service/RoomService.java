@@ -5,6 +5,7 @@ import com.MSPDiON.SchoolSchedule.dto.mapper.RoomMapper;
 import com.MSPDiON.SchoolSchedule.exception.RoomNotFoundException;
 import com.MSPDiON.SchoolSchedule.model.Room;
 import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ public class RoomService {
 
   private final RoomRepository roomRepository;
   private final RoomMapper roomMapper;
+  private final ReferenceDataCache referenceData;
 
   public List<RoomDto> getAll() {
     return roomRepository.findAll().stream().map(roomMapper::toDto).toList();
@@ -28,6 +30,7 @@ public class RoomService {
   public RoomDto create(RoomDto dto) {
     Room entity = roomMapper.toEntity(dto);
     Room saved = roomRepository.save(entity);
+    referenceData.put(saved);
     return roomMapper.toDto(saved);
   }
 
@@ -37,6 +40,7 @@ public class RoomService {
     existing.setName(dto.getName());
 
     Room saved = roomRepository.save(existing);
+    referenceData.put(saved);
     return roomMapper.toDto(saved);
   }
 
@@ -45,5 +49,6 @@ public class RoomService {
       throw new RoomNotFoundException(id);
     }
     roomRepository.deleteById(id);
+    referenceData.evictRoom(id);
   }
 }
@@ -0,0 +1,114 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.TimetableDto;
+import com.MSPDiON.SchoolSchedule.dto.TimetableEntryDto;
+import com.MSPDiON.SchoolSchedule.dto.mapper.ScheduleMapper;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.exception.ScheduleSlotNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import com.MSPDiON.SchoolSchedule.service.index.TimetableReadModel;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Ścieżka odczytu planu: zamiast encji (z EAGER działami terapeutów i kolekcją uczniów) zapytania
+ * zwracają płaskie wiersze, składane w ScheduleSlotDto w jednym przebiegu. Strona to dwa zapytania:
+ * id strony oraz wiersze tej strony; odczyt bez limitu to jedno zapytanie z filtrami, bez listy id
+ * (ta mogłaby przekroczyć limit 32767 parametrów sterownika PostgreSQL).
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ScheduleQueryService {
+
+  private final ScheduleSlotRepository scheduleSlotRepository;
+  private final ScheduleMapper scheduleMapper;
+  private final TimetableReadModel timetableReadModel;
+
+  public List<ScheduleSlotDto> getAllScheduleSlots(LocalDate date, Long after, Integer limit) {
+    return findPage(date, null, null, null, after, limit);
+  }
+
+  public List<ScheduleSlotDto> getScheduleForTherapist(
+      Long therapistId, LocalDate date, Long after, Integer limit) {
+    return findPage(date, therapistId, null, null, after, limit);
+  }
+
+  public List<ScheduleSlotDto> getScheduleForStudent(
+      Long studentId, LocalDate date, Long after, Integer limit) {
+    return findPage(date, null, studentId, null, after, limit);
+  }
+
+  public List<ScheduleSlotDto> getScheduleForClass(
+      Long classId, LocalDate date, Long after, Integer limit) {
+    return findPage(date, null, null, classId, after, limit);
+  }
+
+  public ScheduleSlotDto getById(Long id) {
+    List<ScheduleSlotDto> found =
+        scheduleMapper.toDtos(scheduleSlotRepository.findRowsByIdIn(List.of(id)));
+    if (found.isEmpty()) throw new ScheduleSlotNotFoundException(id);
+    return found.get(0);
+  }
+
+  /**
+   * Tygodniowy plan z modelu odczytu, bez zapytań o sloty.
+   *
+   * @param date gdy podana, tylko zajęcia obowiązujące w tym dniu
+   */
+  public TimetableDto getTimetable(String entityType, Long entityId, LocalDate date) {
+    ResourceType type = ResourceType.fromEntityType(entityType);
+
+    Map<Integer, List<TimetableEntryDto>> days = new LinkedHashMap<>();
+    timetableReadModel
+        .timetable(type, entityId)
+        .forEach(
+            (day, slots) -> {
+              List<TimetableEntryDto> entries =
+                  slots.stream()
+                      .filter(s -> date == null || isActiveOn(s, date))
+                      .map(scheduleMapper::toTimetableEntry)
+                      .toList();
+              if (!entries.isEmpty()) days.put(day.getValue(), entries);
+            });
+
+    return TimetableDto.builder()
+        .entityType(type.name())
+        .entityId(entityId)
+        .days(days)
+        .build();
+  }
+
+  private static boolean isActiveOn(ScheduleSlotSnapshot slot, LocalDate date) {
+    return !slot.validFrom().isAfter(date)
+        && (slot.validTo() == null || !slot.validTo().isBefore(date));
+  }
+
+  /** Strona slotów (keyset po id) z filtrem dat i zasobu w SQL. Bez limitu zwraca wszystko. */
+  private List<ScheduleSlotDto> findPage(
+      LocalDate date, Long therapistId, Long studentId, Long classId, Long after, Integer limit) {
+    if (limit != null && limit <= 0) {
+      throw new IllegalArgumentException("Parametr limit musi być dodatni");
+    }
+    long afterId = after != null ? after : 0L;
+    if (limit == null) {
+      return scheduleMapper.toDtos(
+          scheduleSlotRepository.findRows(date, therapistId, studentId, classId, afterId));
+    }
+
+    List<Long> ids =
+        scheduleSlotRepository.findPageIds(
+            date, therapistId, studentId, classId, afterId, Limit.of(limit));
+    if (ids.isEmpty()) return List.of();
+
+    return scheduleMapper.toDtos(scheduleSlotRepository.findRowsByIdIn(ids));
+  }
+}
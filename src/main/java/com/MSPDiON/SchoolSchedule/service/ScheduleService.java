@@ -1,342 +1,343 @@
 package com.MSPDiON.SchoolSchedule.service;
 
-import static com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder.buildPresenceConflictMessage;
-import static com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder.buildStudentClassConflictMessage;
 import static com.MSPDiON.SchoolSchedule.utils.DateUtils.isTimeOverlap;
 
+import com.MSPDiON.SchoolSchedule.dto.BatchCreateResultDto;
+import com.MSPDiON.SchoolSchedule.dto.BatchItemResultDto;
+import com.MSPDiON.SchoolSchedule.dto.BatchMode;
 import com.MSPDiON.SchoolSchedule.dto.CreateScheduleSlotDto;
 import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
 import com.MSPDiON.SchoolSchedule.dto.mapper.ScheduleMapper;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
 import com.MSPDiON.SchoolSchedule.exception.ConflictException;
+import com.MSPDiON.SchoolSchedule.exception.NoScheduleSlotsException;
 import com.MSPDiON.SchoolSchedule.exception.ScheduleSlotNotFoundException;
 import com.MSPDiON.SchoolSchedule.exception.StudentClassNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
 import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
 import com.MSPDiON.SchoolSchedule.model.Student;
 import com.MSPDiON.SchoolSchedule.model.StudentClass;
 import com.MSPDiON.SchoolSchedule.repository.*;
-import com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder;
+import com.MSPDiON.SchoolSchedule.service.index.GeneratedFileCache;
+import com.MSPDiON.SchoolSchedule.service.index.OccupancyBitmapCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleConflictIndex;
+import com.MSPDiON.SchoolSchedule.service.lock.ScheduleLockManager;
+import com.MSPDiON.SchoolSchedule.service.lock.ScheduleLockManager.LockKey;
+import com.MSPDiON.SchoolSchedule.service.validation.SlotValidationContext;
+import com.MSPDiON.SchoolSchedule.service.validation.SlotValidationEngine;
+import com.MSPDiON.SchoolSchedule.utils.WeekMask;
 import com.MSPDiON.SchoolSchedule.utils.xlsx.ExcelFileNameGenerator;
+import com.MSPDiON.SchoolSchedule.utils.xlsx.ExcelLookupContext;
 import com.MSPDiON.SchoolSchedule.utils.xlsx.ScheduleExcelGenerator;
 import jakarta.transaction.Transactional;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.Workbook;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
 
+  // Zastępuje pustą listę w klauzuli IN (id w bazie są dodatnie)
+  private static final Set<Long> NO_IDS = Set.of(0L);
+
+  // Granice otwartych okresów obowiązywania w zapytaniach (LocalDate.MIN/MAX nie mieszczą się w
+  // typie DATE)
+  private static final LocalDate OPEN_VALID_FROM = LocalDate.of(1900, 1, 1);
+  private static final LocalDate OPEN_VALID_TO = LocalDate.of(9999, 12, 31);
+
   private final ScheduleSlotRepository scheduleSlotRepository;
   private final StudentRepository studentRepository;
   private final TherapistRepository therapistRepository;
+  private final RoomRepository roomRepository;
   private final StudentClassRepository studentClassRepository;
   private final ScheduleExcelGenerator excelGenerator;
   private final ScheduleMapper scheduleMapper;
+  private final ScheduleSlotBatchRepository scheduleSlotBatchRepository;
+  private final ScheduleConflictIndex conflictIndex;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ScheduleLockManager lockManager;
+  private final OccupancyBitmapCache occupancyCache;
+  private final SlotValidationEngine validationEngine;
+  private final ScheduleQueryService scheduleQueryService;
+  private final GeneratedFileCache fileCache;
+
+  // Porównuje wyniki indeksu z zapytaniami JPQL i loguje rozbieżności (diagnostyka)
+  @Value("${schedule.conflict-index.verify:false}")
+  private boolean verifyConflictIndex;
 
+  @Transactional
   public ScheduleSlotDto createScheduleSlot(CreateScheduleSlotDto dto) {
     ScheduleSlot entity = scheduleMapper.toEntity(dto);
+    lockManager.lockSlots(entity);
     validateSlot(entity);
-    return scheduleMapper.toDto(scheduleSlotRepository.save(entity));
-  }
-
-  public List<ScheduleSlotDto> getScheduleForTherapist(Long therapistId, LocalDate date) {
-    return scheduleSlotRepository.findByTherapistId(therapistId).stream()
-        .filter(slot -> isSlotValidForDate(slot, date))
-        .map(scheduleMapper::toDto)
-        .toList();
+    ScheduleSlot saved = scheduleSlotRepository.save(entity);
+    publishCreated(saved);
+    return scheduleMapper.toDto(saved);
   }
 
-  public List<ScheduleSlot> getScheduleForStudent(Long studentId) {
-    return scheduleSlotRepository.findByStudentId(studentId);
-  }
-
-  public List<ScheduleSlot> getScheduleForClass(Long classId) {
-    return scheduleSlotRepository.findByStudentClassId(classId);
-  }
-
-  private void validateSlot(ScheduleSlot slot) {
-    Map<String, String> errors = new HashMap<>();
-
-    // Sprawdzenie liczby zajęć w danym dniu dla uczniów
-    List<String> tooManySessionsErrors = checkDailyStudentSessionLimit(slot);
-    if (!tooManySessionsErrors.isEmpty()) {
-      errors.put("students", String.join(", ", tooManySessionsErrors));
-      throw new ConflictException(errors);
-    }
-
-    // Sprawdzenie, czy slot ma klasę lub uczniów
-    try {
-      ensureTherapistHasClassOrStudents(slot);
-    } catch (IllegalArgumentException e) {
-      errors.put("students", e.getMessage());
-    }
-
-    // Sprawdzenie dostępności terapeuty z uwzględnieniem dat
-    List<String> therapistConflicts = checkTherapistAvailability(slot);
-    if (!therapistConflicts.isEmpty()) {
-      errors.put("therapist", String.join(", ", therapistConflicts));
-    }
-
-    // Sprawdzenie dostępności sali z uwzględnieniem dat
-    List<String> roomConflicts = checkRoomAvailability(slot);
-    if (!roomConflicts.isEmpty()) {
-      errors.put("room", String.join(", ", roomConflicts));
-    }
-
-    // Konflikty uczniów z uwzględnieniem dat
-    List<String> studentErrors = checkStudentConflicts(slot);
-    if (!studentErrors.isEmpty()) {
-      errors.put("students", String.join(", ", studentErrors));
+  /**
+   * Tworzy wiele slotów naraz. Sloty kolidujące z całą paczką są wczytywane jednym zapytaniem, a
+   * każdy slot jest walidowany w pamięci względem nich oraz wcześniej zaakceptowanych slotów z tej
+   * samej paczki; zaakceptowane sloty są zapisywane jednym batchem JDBC w jednej transakcji. W
+   * trybie ALL_OR_NOTHING nic nie jest zapisywane, jeśli którykolwiek slot został odrzucony.
+   */
+  @Transactional
+  public BatchCreateResultDto createScheduleSlots(
+      List<CreateScheduleSlotDto> dtos, BatchMode mode) {
+    List<ScheduleSlot> accepted = new ArrayList<>();
+    List<BatchItemResultDto> items = new ArrayList<>();
+    Map<Integer, ScheduleSlot> mapped = new HashMap<>();
+
+    for (int i = 0; i < dtos.size(); i++) {
+      BatchItemResultDto item = BatchItemResultDto.builder().index(i).build();
+      try {
+        mapped.put(i, scheduleMapper.toEntity(dtos.get(i)));
+      } catch (ConflictException e) {
+        item.setErrors(e.getFieldErrors());
+      }
+      items.add(item);
     }
 
-    // Konflikty klasy z uwzględnieniem dat
-    List<String> classErrors = checkClassStudentConflicts(slot);
-    if (!classErrors.isEmpty()) {
-      errors.put("studentClass", String.join(", ", classErrors));
+    // Wszystkie blokady naraz i w jednej kolejności, zanim zacznie się walidacja
+    lockManager.lockSlots(mapped.values().toArray(ScheduleSlot[]::new));
+    BatchValidationData data = loadBatchValidationData(mapped.values());
+
+    for (BatchItemResultDto item : items) {
+      ScheduleSlot entity = mapped.get(item.getIndex());
+      if (entity == null) continue;
+      List<SlotViolationDto> violations =
+          validationEngine.validateInline(batchValidationContext(entity, data, accepted));
+      if (violations.isEmpty()) {
+        accepted.add(entity);
+        item.setAccepted(true);
+      } else {
+        ConflictException e = new ConflictException(violations);
+        item.setErrors(e.getFieldErrors());
+        item.setViolations(e.getViolations());
+      }
     }
 
-    // Sprawdzenie obecności uczniów w ciągu dnia
-    List<String> presenceErrors = checkStudentDailyPresence(slot);
-    if (!presenceErrors.isEmpty()) {
-      errors.put("students", String.join(", ", presenceErrors));
+    int rejected = (int) items.stream().filter(item -> !item.isAccepted()).count();
+    if (mode == BatchMode.ALL_OR_NOTHING && rejected > 0) {
+      return new BatchCreateResultDto(mode, 0, rejected, items);
     }
 
-    // Sprawdzenie dat obowiązywania
-    if (slot.getValidFrom() == null) {
-      errors.put("validFrom", "Data rozpoczęcia obowiązywania slotu jest wymagana");
-    } else if (slot.getValidTo() != null && slot.getValidFrom().isAfter(slot.getValidTo())) {
-      errors.put("validTo", "Data zakończenia nie może być przed datą rozpoczęcia");
-    }
+    scheduleSlotBatchRepository.insertAll(accepted);
+    accepted.forEach(this::publishCreated);
 
-    List<ScheduleSlot> relatedSlots = new ArrayList<>();
-    if (slot.getStudentClass() != null) {
-      relatedSlots.addAll(
-          scheduleSlotRepository.findByStudentClassId(slot.getStudentClass().getId()));
-    }
-    if (slot.getStudents() != null) {
-      for (Student student : slot.getStudents()) {
-        relatedSlots.addAll(scheduleSlotRepository.findByStudentId(student.getId()));
-      }
-    }
-    for (ScheduleSlot existing : relatedSlots) {
-      if (existing.getId().equals(slot.getId())) continue;
-      if (areSlotsOverlapping(slot, existing)) {
-        errors.put(
-            "startTime",
-            "Godziny slotu kolidują z istniejącym slotem w tym samym dniu tygodnia i okresie obowiązywania.");
-      }
-    }
-
-    if (!errors.isEmpty()) {
-      throw new ConflictException(errors);
+    int next = 0;
+    for (BatchItemResultDto item : items) {
+      if (item.isAccepted()) item.setSlot(scheduleMapper.toDto(accepted.get(next++)));
     }
+    return new BatchCreateResultDto(mode, accepted.size(), rejected, items);
   }
 
-  private List<String> checkDailyStudentSessionLimit(ScheduleSlot slot) {
-    List<String> messages = new ArrayList<>();
-
-    if ((slot.getStudents() == null || slot.getStudents().isEmpty())
-        && slot.getStudentClass() != null) {
-      return messages;
-    }
+  public List<ScheduleSlot> getScheduleForStudent(Long studentId) {
+    return scheduleSlotRepository.findByStudentId(studentId);
+  }
 
-    if (slot.getStudents() == null) {
-      return messages;
-    }
+  public List<ScheduleSlot> getScheduleForClass(Long classId) {
+    return scheduleSlotRepository.findByStudentClassId(classId);
+  }
 
-    for (Student student : slot.getStudents()) {
-      List<ScheduleSlot> studentSlots = scheduleSlotRepository.findByStudentId(student.getId());
-
-      long sameDayCount =
-          studentSlots.stream()
-              .filter(s -> !s.getId().equals(slot.getId()))
-              .filter(s -> s.getDayOfWeek() == slot.getDayOfWeek())
-              .filter(s -> s.getStudentClass() == null)
-              .count();
-
-      sameDayCount++;
-
-      if (sameDayCount > 3) {
-        messages.add(
-            "Uczeń "
-                + student.getFirstName()
-                + " "
-                + student.getLastName()
-                + " ma już zaplanowane "
-                + (sameDayCount - 1)
-                + " zajęcia tego dnia. Maksymalnie dozwolone to 3.");
-      }
+  private void validateSlot(ScheduleSlot slot) {
+    List<SlotViolationDto> violations = validationEngine.validate(loadValidationContext(slot));
+    if (!violations.isEmpty()) {
+      throw new ConflictException(violations);
     }
-
-    return messages;
   }
 
-  private boolean areSlotsOverlapping(ScheduleSlot slot1, ScheduleSlot slot2) {
-    LocalDate slot1From = slot1.getValidFrom();
-    LocalDate slot1To = slot1.getValidTo() != null ? slot1.getValidTo() : LocalDate.MAX;
-    LocalDate slot2From = slot2.getValidFrom();
-    LocalDate slot2To = slot2.getValidTo() != null ? slot2.getValidTo() : LocalDate.MAX;
-
-    if (slot1To.isBefore(slot2From) || slot1From.isAfter(slot2To)) return false;
+  private SlotValidationContext loadValidationContext(ScheduleSlot slot) {
+    List<Student> classStudents =
+        slot.getStudentClass() != null
+            ? studentRepository.findByStudentClassId(slot.getStudentClass().getId())
+            : List.of();
+    Set<Long> studentIds = studentIdsOf(slot, classStudents);
 
-    if (!slot1.getDayOfWeek().equals(slot2.getDayOfWeek())) return false;
+    List<ScheduleSlot> related =
+        conflictIndex.isReady()
+            ? loadRelatedSlotsFromIndex(slot, studentIds)
+            : loadRelatedSlotsFromDatabase(slot, studentIds);
 
-    return isTimeOverlap(
-        slot1.getStartTime(), slot1.getEndTime(), slot2.getStartTime(), slot2.getEndTime());
+    return new SlotValidationContext(
+        slot, classStudents, related.stream().filter(c -> !isSameSlot(slot, c)).toList());
   }
 
-  private List<String> checkStudentDailyPresence(ScheduleSlot slot) {
-    List<String> messages = new ArrayList<>();
-    if (slot.getStudents() == null && slot.getStudentClass() == null) return messages;
-
-    List<Student> studentsToCheck = new ArrayList<>();
-
-    if (slot.getStudentClass() != null) {
-      studentsToCheck.addAll(
-          studentRepository.findByStudentClassId(slot.getStudentClass().getId()));
-    }
-
+  private static Set<Long> studentIdsOf(ScheduleSlot slot, List<Student> classStudents) {
+    Set<Long> studentIds = new HashSet<>();
     if (slot.getStudents() != null) {
-      studentsToCheck.addAll(slot.getStudents());
+      slot.getStudents().forEach(s -> studentIds.add(s.getId()));
     }
-
-    for (Student student : studentsToCheck) {
-      checkPresenceForStudent(slot, student).ifPresent(messages::add);
+    classStudents.forEach(s -> studentIds.add(s.getId()));
+    return studentIds;
+  }
+
+  /** Uczniowie klas i sloty mogące kolidować z którymkolwiek slotem paczki. */
+  private record BatchValidationData(
+      Map<Long, List<Student>> classStudents, List<ScheduleSlot> candidates) {}
+
+  // Dwa zapytania dla całej paczki zamiast dwóch na każdy slot
+  private BatchValidationData loadBatchValidationData(Collection<ScheduleSlot> batch) {
+    if (batch.isEmpty()) return new BatchValidationData(Map.of(), List.of());
+
+    Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+    Set<Long> therapistIds = new HashSet<>();
+    Set<Long> roomIds = new HashSet<>();
+    Set<Long> classIds = new HashSet<>();
+    Set<Long> studentIds = new HashSet<>();
+    LocalDate validFrom = OPEN_VALID_TO;
+    LocalDate validTo = OPEN_VALID_FROM;
+    for (ScheduleSlot slot : batch) {
+      days.add(slot.getDayOfWeek());
+      therapistIds.add(slot.getTherapist().getId());
+      roomIds.add(slot.getRoom().getId());
+      if (slot.getStudentClass() != null) classIds.add(slot.getStudentClass().getId());
+      if (slot.getStudents() != null) slot.getStudents().forEach(s -> studentIds.add(s.getId()));
+      LocalDate from = slot.getValidFrom() != null ? slot.getValidFrom() : OPEN_VALID_FROM;
+      LocalDate to = slot.getValidTo() != null ? slot.getValidTo() : OPEN_VALID_TO;
+      if (from.isBefore(validFrom)) validFrom = from;
+      if (to.isAfter(validTo)) validTo = to;
     }
 
-    return messages;
-  }
-
-  private Optional<String> checkPresenceForStudent(ScheduleSlot slot, Student student) {
-    if (student.getArrivalTime() == null || student.getDepartureTime() == null) {
-      return Optional.empty();
+    Map<Long, List<Student>> classStudents =
+        classIds.isEmpty()
+            ? Map.of()
+            : studentRepository.findByStudentClassIdIn(classIds).stream()
+                .collect(Collectors.groupingBy(s -> s.getStudentClass().getId()));
+    classStudents.values().forEach(list -> list.forEach(s -> studentIds.add(s.getId())));
+
+    List<ScheduleSlot> candidates =
+        scheduleSlotRepository.findBatchValidationCandidates(
+            days,
+            validFrom,
+            validTo,
+            therapistIds,
+            roomIds,
+            classIds.isEmpty() ? NO_IDS : classIds,
+            studentIds.isEmpty() ? NO_IDS : studentIds);
+    return new BatchValidationData(classStudents, candidates);
+  }
+
+  /** Kontekst slotu paczki z danych wczytanych raz; {@code pending} to wcześniej zaakceptowane. */
+  private SlotValidationContext batchValidationContext(
+      ScheduleSlot slot, BatchValidationData data, List<ScheduleSlot> pending) {
+    List<Student> classStudents =
+        slot.getStudentClass() != null
+            ? data.classStudents().getOrDefault(slot.getStudentClass().getId(), List.of())
+            : List.of();
+    Set<Long> studentIds = studentIdsOf(slot, classStudents);
+
+    List<ScheduleSlot> related = new ArrayList<>();
+    data.candidates().stream()
+        .filter(c -> isValidationCandidate(slot, studentIds, c))
+        .forEach(related::add);
+    pending.stream().filter(p -> p.getDayOfWeek() == slot.getDayOfWeek()).forEach(related::add);
+    return new SlotValidationContext(slot, classStudents, related);
+  }
+
+  // Ten sam warunek co findValidationCandidates, sprawdzany w pamięci
+  private static boolean isValidationCandidate(
+      ScheduleSlot slot, Set<Long> studentIds, ScheduleSlot candidate) {
+    if (candidate.getDayOfWeek() != slot.getDayOfWeek()) return false;
+    if (!SlotValidationContext.areValidityPeriodsOverlapping(slot, candidate)) return false;
+
+    boolean timeOverlap =
+        isTimeOverlap(
+            slot.getStartTime(),
+            slot.getEndTime(),
+            candidate.getStartTime(),
+            candidate.getEndTime());
+    if (timeOverlap && candidate.getTherapist().getId().equals(slot.getTherapist().getId())) {
+      return true;
     }
-
-    if (slot.getStartTime().isBefore(student.getArrivalTime())
-        || slot.getEndTime().isAfter(student.getDepartureTime())) {
-      return Optional.of(buildPresenceConflictMessage(student));
+    if (timeOverlap && candidate.getRoom().getId().equals(slot.getRoom().getId())) return true;
+    if (slot.getStudentClass() != null
+        && candidate.getStudentClass() != null
+        && candidate.getStudentClass().getId().equals(slot.getStudentClass().getId())) {
+      return true;
     }
-
-    return Optional.empty();
+    return candidate.getStudents() != null
+        && candidate.getStudents().stream().anyMatch(s -> studentIds.contains(s.getId()));
   }
 
-  private void ensureTherapistHasClassOrStudents(ScheduleSlot slot) {
-    boolean hasClass = slot.getStudentClass() != null;
-    boolean hasStudents = slot.getStudents() != null && !slot.getStudents().isEmpty();
+  private List<ScheduleSlot> loadRelatedSlotsFromIndex(ScheduleSlot slot, Set<Long> studentIds) {
+    ScheduleSlotSnapshot candidate = ScheduleSlotSnapshot.of(slot);
 
-    if (!hasClass && !hasStudents) {
-      throw new IllegalArgumentException(
-          "Terapeuta musi mieć przypisaną klasę lub przynajmniej jednego ucznia.");
+    // Mapy zajętości jako tani filtr wstępny: brak wspólnych komórek wyklucza kolizję
+    Set<Long> ids = new HashSet<>();
+    if (occupancyCache.mayOverlap(ResourceType.THERAPIST, candidate.therapistId(), candidate)) {
+      ids.addAll(
+          conflictIndex.findConflicts(ResourceType.THERAPIST, candidate.therapistId(), candidate));
     }
-  }
-
-  private List<String> checkTherapistAvailability(ScheduleSlot slot) {
-    List<ScheduleSlot> conflicts =
-        scheduleSlotRepository.findConflictsByTherapist(
-            slot.getTherapist().getId(),
-            slot.getDayOfWeek(),
-            slot.getStartTime(),
-            slot.getEndTime());
-
-    conflicts.removeIf(c -> c.getId().equals(slot.getId()));
-
-    if (conflicts.isEmpty()) return List.of();
-    return List.of(ConflictMessageBuilder.buildTherapistConflictMessage(slot, conflicts));
-  }
-
-  private List<String> checkRoomAvailability(ScheduleSlot slot) {
-    List<ScheduleSlot> conflicts =
-        scheduleSlotRepository.findConflictsByRoom(
-            slot.getRoom().getId(), slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
-
-    conflicts.removeIf(c -> c.getId().equals(slot.getId()));
-
-    if (conflicts.isEmpty()) return List.of();
-    return List.of(ConflictMessageBuilder.buildRoomConflictMessage(slot, conflicts));
-  }
-
-  private List<String> checkStudentConflicts(ScheduleSlot slot) {
-    List<String> messages = new ArrayList<>();
-    if (slot.getStudents() == null) return messages;
-
-    for (Student student : slot.getStudents()) {
-      List<ScheduleSlot> conflicts =
-          scheduleSlotRepository.findConflictsByStudent(
-              student.getId(), slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
-
-      conflicts.removeIf(c -> c.getId().equals(slot.getId()));
-
-      if (!conflicts.isEmpty()) {
-        messages.add(ConflictMessageBuilder.buildStudentConflictMessage(student, conflicts));
-      }
+    if (occupancyCache.mayOverlap(ResourceType.ROOM, candidate.roomId(), candidate)) {
+      ids.addAll(conflictIndex.findConflicts(ResourceType.ROOM, candidate.roomId(), candidate));
     }
-    return messages;
-  }
-
-  private List<String> checkClassStudentConflicts(ScheduleSlot slot) {
-    List<String> messages = new ArrayList<>();
-    if (slot.getStudentClass() == null) return messages;
-
-    StudentClass studentClass = slot.getStudentClass();
-    List<Student> classStudents = studentRepository.findByStudentClassId(studentClass.getId());
-
-    for (Student student : classStudents) {
-      checkConflictsForStudent(slot, student, studentClass).ifPresent(messages::add);
+    ids.addAll(
+        conflictIndex.findSameDay(ResourceType.CLASS, candidate.studentClassId(), candidate));
+    for (Long studentId : studentIds) {
+      ids.addAll(conflictIndex.findSameDay(ResourceType.STUDENT, studentId, candidate));
     }
 
-    return messages;
-  }
-
-  private Optional<String> checkConflictsForStudent(
-      ScheduleSlot slot, Student student, StudentClass studentClass) {
-    List<ScheduleSlot> conflicts =
-        scheduleSlotRepository.findConflictsByStudent(
-            student.getId(), slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
-
-    conflicts.removeIf(c -> c.getId().equals(slot.getId()));
-
-    if (!conflicts.isEmpty()) {
-      return Optional.of(buildStudentClassConflictMessage(student, studentClass));
+    if (verifyConflictIndex) {
+      verifyConflictIndex(slot, studentIds, ids);
+    }
+    return ids.isEmpty() ? List.of() : scheduleSlotRepository.findWithDetailsByIdIn(ids);
+  }
+
+  private List<ScheduleSlot> loadRelatedSlotsFromDatabase(ScheduleSlot slot, Set<Long> studentIds) {
+    return scheduleSlotRepository.findValidationCandidates(
+        slot.getDayOfWeek(),
+        slot.getStartTime(),
+        slot.getEndTime(),
+        slot.getValidFrom() != null ? slot.getValidFrom() : OPEN_VALID_FROM,
+        slot.getValidTo() != null ? slot.getValidTo() : OPEN_VALID_TO,
+        slot.getTherapist().getId(),
+        slot.getRoom().getId(),
+        slot.getStudentClass() != null ? slot.getStudentClass().getId() : null,
+        studentIds.isEmpty() ? NO_IDS : studentIds);
+  }
+
+  private void verifyConflictIndex(ScheduleSlot slot, Set<Long> studentIds, Set<Long> indexed) {
+    Set<Long> expected =
+        loadRelatedSlotsFromDatabase(slot, studentIds).stream()
+            .filter(c -> !isSameSlot(slot, c))
+            .filter(c -> SlotValidationContext.areValidityPeriodsOverlapping(slot, c))
+            .map(ScheduleSlot::getId)
+            .collect(Collectors.toSet());
+    if (!expected.equals(indexed)) {
+      log.warn(
+          "Indeks konfliktów niezgodny z bazą dla slotu {}: indeks={}, baza={}",
+          slot.getId(),
+          indexed,
+          expected);
     }
-    return Optional.empty();
-  }
-
-  public List<ScheduleSlotDto> getAllScheduleSlots(LocalDate date) {
-    return scheduleSlotRepository.findAll().stream()
-        .filter(slot -> isSlotValidForDate(slot, date))
-        .map(scheduleMapper::toDto)
-        .toList();
-  }
-
-  public ScheduleSlotDto getById(Long id) {
-    ScheduleSlot slot =
-        scheduleSlotRepository
-            .findById(id)
-            .orElseThrow(() -> new ScheduleSlotNotFoundException(id));
-    return scheduleMapper.toDto(slot);
-  }
-
-  public List<ScheduleSlotDto> getScheduleForStudentDto(Long studentId, LocalDate date) {
-    return scheduleSlotRepository.findByStudentId(studentId).stream()
-        .filter(slot -> isSlotValidForDate(slot, date))
-        .map(scheduleMapper::toDto)
-        .toList();
   }
 
-  public List<ScheduleSlotDto> getScheduleForClassDto(Long classId, LocalDate date) {
-    return scheduleSlotRepository.findByStudentClassId(classId).stream()
-        .filter(slot -> isSlotValidForDate(slot, date))
-        .map(scheduleMapper::toDto)
-        .toList();
+  private boolean isSameSlot(ScheduleSlot slot, ScheduleSlot other) {
+    return slot == other || (slot.getId() != null && slot.getId().equals(other.getId()));
   }
 
   private boolean isSlotValidForDate(ScheduleSlot slot, LocalDate date) {
@@ -345,120 +346,195 @@ public class ScheduleService {
     return slot.getValidTo() == null || !slot.getValidTo().isBefore(date);
   }
 
+  // Zapisany slot jest wczytywany dopiero pod blokadami, więc stan "przed" jest aktualny
+  @Transactional
   public ScheduleSlotDto updateScheduleSlotForAllStudents(Long id, ScheduleSlotDto dto) {
+    ScheduleSlot updated = scheduleMapper.toEntity(dto);
+    updated.setId(id);
+
+    lockManager.lockStoredSlot(id, updated);
     ScheduleSlot existing =
         scheduleSlotRepository
             .findById(id)
             .orElseThrow(() -> new ScheduleSlotNotFoundException(id));
-
-    ScheduleSlot updated = scheduleMapper.toEntity(dto);
-    updated.setId(existing.getId());
+    ScheduleSlotSnapshot before = ScheduleSlotSnapshot.of(existing);
 
     validateSlot(updated);
-    return scheduleMapper.toDto(scheduleSlotRepository.save(updated));
+    ScheduleSlot saved = scheduleSlotRepository.save(updated);
+    publishUpdated(before, saved);
+    return scheduleMapper.toDto(saved);
   }
 
+  @Transactional
   public ScheduleSlotDto updateScheduleSlotForSingleStudent(
       Long id, Long studentId, ScheduleSlotDto dto) {
-    ScheduleSlot existing =
-        scheduleSlotRepository
-            .findById(id)
-            .orElseThrow(() -> new ScheduleSlotNotFoundException(id));
-
     Student student =
         studentRepository
             .findById(studentId)
             .orElseThrow(() -> new StudentClassNotFoundException(studentId));
 
-    existing.getStudents().removeIf(s -> s.getId().equals(studentId));
-    scheduleSlotRepository.save(existing);
-
     ScheduleSlot newSlot = scheduleMapper.toEntity(dto);
     newSlot.setId(null);
     newSlot.setStudents(Set.of(student));
 
+    lockManager.lockStoredSlot(id, newSlot);
+    ScheduleSlot existing =
+        scheduleSlotRepository
+            .findById(id)
+            .orElseThrow(() -> new ScheduleSlotNotFoundException(id));
+
+    ScheduleSlotSnapshot before = ScheduleSlotSnapshot.of(existing);
+    existing.getStudents().removeIf(s -> s.getId().equals(studentId));
+    publishUpdated(before, scheduleSlotRepository.save(existing));
+
     validateSlot(newSlot);
-    return scheduleMapper.toDto(scheduleSlotRepository.save(newSlot));
+    ScheduleSlot saved = scheduleSlotRepository.save(newSlot);
+    publishCreated(saved);
+    return scheduleMapper.toDto(saved);
   }
 
+  @Transactional
   public void deleteScheduleSlot(Long id) {
-    if (!scheduleSlotRepository.existsById(id)) {
-      throw new ScheduleSlotNotFoundException(id);
-    }
-    scheduleSlotRepository.deleteById(id);
+    lockManager.lockStoredSlot(id);
+    ScheduleSlot slot =
+        scheduleSlotRepository
+            .findById(id)
+            .orElseThrow(() -> new ScheduleSlotNotFoundException(id));
+    deleteSlot(slot);
   }
 
+  @Transactional
   public void deleteScheduleSlotForAllStudents(Long id) {
-    if (!scheduleSlotRepository.existsById(id)) {
-      throw new ScheduleSlotNotFoundException(id);
-    }
-    scheduleSlotRepository.deleteById(id);
+    deleteScheduleSlot(id);
   }
 
+  @Transactional
   public void deleteScheduleSlotForSingleStudent(Long slotId, Long studentId) {
+    lockManager.lockStoredSlot(slotId);
     ScheduleSlot slot =
         scheduleSlotRepository
             .findById(slotId)
             .orElseThrow(() -> new ScheduleSlotNotFoundException(slotId));
 
+    ScheduleSlotSnapshot before = ScheduleSlotSnapshot.of(slot);
     boolean removed = slot.getStudents().removeIf(s -> s.getId().equals(studentId));
 
     if (!removed)
       throw new RuntimeException("Student with id " + studentId + " not found in this slot");
 
-    if (slot.getStudents().isEmpty()) scheduleSlotRepository.delete(slot);
-    else scheduleSlotRepository.save(slot);
+    if (slot.getStudents().isEmpty()) deleteSlot(slot);
+    else publishUpdated(before, scheduleSlotRepository.save(slot));
   }
 
   @Transactional
   public void clearSchedule(Long entityId, String entityType) {
+    List<Long> slotIds =
+        switch (entityType.toLowerCase()) {
+          case "student" -> scheduleSlotRepository.findIdsByStudentIdIn(List.of(entityId));
+          case "therapist" -> scheduleSlotRepository.findIdsByTherapistId(entityId);
+          case "class" -> scheduleSlotRepository.findIdsByStudentClassId(entityId);
+          default -> throw new IllegalArgumentException("Unknown entityType: " + entityType);
+        };
+    // Wiersze i zasoby w jednej paczce; skład slotów czytany dopiero pod blokadą
+    lockManager.lockStoredSlots(slotIds);
+    List<ScheduleSlot> slots = scheduleSlotRepository.findAllById(slotIds);
+
     switch (entityType.toLowerCase()) {
-      case "student":
-        clearStudentSlots(entityId);
-        break;
-      case "therapist":
-        clearTherapistSlots(entityId);
-        break;
-      case "class":
-        clearClassSlots(entityId);
-        break;
-      default:
-        throw new IllegalArgumentException("Unknown entityType: " + entityType);
+      case "student" -> clearStudentSlots(entityId, slots);
+      case "therapist" -> slots.stream()
+          .filter(slot -> entityId.equals(slot.getTherapist().getId()))
+          .forEach(this::deleteSlot);
+      default -> slots.stream()
+          .filter(slot -> slot.getStudentClass() != null)
+          .filter(slot -> entityId.equals(slot.getStudentClass().getId()))
+          .forEach(this::deleteSlot);
     }
   }
 
-  private void clearStudentSlots(Long studentId) {
-    List<ScheduleSlot> slots = scheduleSlotRepository.findByStudentId(studentId);
+  /**
+   * Wypisuje uczniów ze wszystkich slotów przed usunięciem ich z bazy. Kaskada ON DELETE w
+   * schedule_slot_students nie publikuje zdarzeń, więc indeksy i model odczytu zachowałyby
+   * usuniętych uczniów. Slot bez uczniów jest usuwany, jak przy wypisaniu pojedynczego ucznia.
+   *
+   * <p>Klucze uczniów wchodzą do tej samej paczki blokad, więc po jej uzyskaniu nikt nie dopisze
+   * ich do kolejnego slotu. Slot dopisany między odczytem id a blokadą przerywa operację (do
+   * ponowienia) zamiast blokowania go poza kolejnością.
+   */
+  @Transactional
+  public void detachStudents(Collection<Long> studentIds) {
+    if (studentIds.isEmpty()) return;
+    Set<Long> detached = Set.copyOf(studentIds);
+
+    // Wszystkie sloty jedną paczką blokad (wiersze, potem posortowane klucze), dopiero potem odczyt
+    List<Long> slotIds = scheduleSlotRepository.findIdsByStudentIdIn(detached);
+    lockManager.lockStoredSlots(
+        slotIds,
+        detached.stream().map(id -> new LockKey(ResourceType.STUDENT, id)).toList());
+    if (!Set.copyOf(slotIds).containsAll(scheduleSlotRepository.findIdsByStudentIdIn(detached))) {
+      throw new ConflictException(
+          Map.of("studentId", "Plan ucznia zmienił się w trakcie usuwania, spróbuj ponownie"));
+    }
+
+    for (ScheduleSlot slot : scheduleSlotRepository.findAllById(slotIds)) {
+      ScheduleSlotSnapshot before = ScheduleSlotSnapshot.of(slot);
+      if (!slot.getStudents().removeIf(s -> detached.contains(s.getId()))) continue;
 
+      if (slot.getStudents().isEmpty()) deleteSlot(slot);
+      else publishUpdated(before, scheduleSlotRepository.save(slot));
+    }
+  }
+
+  private void clearStudentSlots(Long studentId, List<ScheduleSlot> slots) {
     for (ScheduleSlot slot : slots) {
+      if (slot.getStudents().stream().noneMatch(s -> s.getId().equals(studentId))) continue;
       if (slot.getStudents().size() == 1) {
-        scheduleSlotRepository.delete(slot);
+        deleteSlot(slot);
       } else if (slot.getStudentClass() != null) {
         continue;
       } else {
+        ScheduleSlotSnapshot before = ScheduleSlotSnapshot.of(slot);
         slot.getStudents().removeIf(s -> s.getId().equals(studentId));
-        scheduleSlotRepository.save(slot);
+        publishUpdated(before, scheduleSlotRepository.save(slot));
       }
     }
   }
 
-  private void clearTherapistSlots(Long therapistId) {
-    List<ScheduleSlot> slots = scheduleSlotRepository.findByTherapistId(therapistId);
-    scheduleSlotRepository.deleteAll(slots);
+  private void deleteSlot(ScheduleSlot slot) {
+    ScheduleSlotSnapshot before = ScheduleSlotSnapshot.of(slot);
+    scheduleSlotRepository.delete(slot);
+    eventPublisher.publishEvent(ScheduleSlotChangedEvent.deleted(before));
+  }
+
+  private void publishCreated(ScheduleSlot saved) {
+    eventPublisher.publishEvent(ScheduleSlotChangedEvent.created(ScheduleSlotSnapshot.of(saved)));
   }
 
-  private void clearClassSlots(Long classId) {
-    List<ScheduleSlot> slots = scheduleSlotRepository.findByStudentClassId(classId);
-    scheduleSlotRepository.deleteAll(slots);
+  private void publishUpdated(ScheduleSlotSnapshot before, ScheduleSlot saved) {
+    eventPublisher.publishEvent(
+        ScheduleSlotChangedEvent.updated(before, ScheduleSlotSnapshot.of(saved)));
   }
 
   public GeneratedFile generateScheduleForEntity(
       String entityType, Long entityId, String fileNameSuffix) throws Exception {
+    return generateScheduleForEntity(entityType, entityId, fileNameSuffix, true);
+  }
+
+  /**
+   * Plan do eksportu zbiorczego: z pominięciem cache plików, żeby tysiące jednorazowych wpisów nie
+   * wypychały z LRU planów pobieranych pojedynczo.
+   */
+  public GeneratedFile generateScheduleForBulkExport(String entityType, Long entityId)
+      throws Exception {
+    return generateScheduleForEntity(entityType, entityId, "", false);
+  }
+
+  private GeneratedFile generateScheduleForEntity(
+      String entityType, Long entityId, String fileNameSuffix, boolean cached) throws Exception {
 
     List<ScheduleSlotDto> slots = fetchSlotsForEntity(entityType, entityId);
     String entityName = fetchEntityName(entityType, entityId);
 
-    if (slots.isEmpty()) throw new IllegalArgumentException("Brak slotów do wygenerowania");
+    if (slots.isEmpty()) throw new NoScheduleSlotsException();
 
     LocalDate startDate = getStartDate(slots);
     LocalDate endDate = getEndDate(slots);
@@ -467,25 +543,124 @@ public class ScheduleService {
     String fileName =
         ExcelFileNameGenerator.generateFileName(baseFileName, entityName, startDate, endDate);
 
-    Workbook workbook = excelGenerator.generateSchedule(slots, entityName, entityType);
-    byte[] content = workbookToBytes(workbook);
+    ExcelLookupContext lookup = loadLookupContext(slots);
+    if (!cached) {
+      return new GeneratedFile(
+          fileName,
+          out -> excelGenerator.writeSchedule(slots, lookup, entityName, entityType, out));
+    }
+    String cacheKey =
+        fileCache.keyOf(exportCacheInput(slots, lookup, entityName, entityType, fileNameSuffix));
+
+    // Skoroszyt powstaje dopiero przy zapisie do odpowiedzi i tylko przy braku w cache
+    return new GeneratedFile(
+        fileName,
+        out ->
+            fileCache.writeTo(
+                cacheKey,
+                out,
+                target ->
+                    excelGenerator.writeSchedule(slots, lookup, entityName, entityType, target)));
+  }
+
+  /**
+   * Kanoniczny opis wszystkiego, co trafia do pliku: sloty (po id, uczniowie posortowani) z
+   * nazwami sal, terapeutów i uczniów. Zmiana dowolnej z tych danych zmienia klucz cache.
+   */
+  private String exportCacheInput(
+      List<ScheduleSlotDto> slots,
+      ExcelLookupContext lookup,
+      String entityName,
+      String entityType,
+      String fileNameSuffix) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(entityType).append('|').append(entityName).append('|').append(fileNameSuffix);
+    slots.stream()
+        .sorted(Comparator.comparing(ScheduleSlotDto::getId))
+        .forEach(
+            slot -> {
+              sb.append('\n')
+                  .append(slot.getId())
+                  .append('|')
+                  .append(slot.getTitle())
+                  .append('|')
+                  .append(slot.getDayOfWeek())
+                  .append('|')
+                  .append(slot.getStartTime())
+                  .append('-')
+                  .append(slot.getEndTime())
+                  .append('|')
+                  .append(slot.getValidFrom())
+                  .append('-')
+                  .append(slot.getValidTo())
+                  .append('|')
+                  .append(slot.getStudentClassId())
+                  .append('|')
+                  .append(slot.isIndividual())
+                  .append('|')
+                  .append(lookup.therapistName(slot.getTherapistId()))
+                  .append('|')
+                  .append(lookup.roomName(slot.getRoomId()));
+              if (slot.getStudentIds() != null) {
+                slot.getStudentIds().stream()
+                    .sorted()
+                    .forEach(
+                        id -> sb.append('|').append(id).append(':').append(lookup.studentName(id)));
+              }
+            });
+    return sb.toString();
+  }
+
+  /**
+   * Zajęte minuty zasobu (student | therapist | class | room) w poszczególnych dniach tygodnia,
+   * liczone ze slotów obowiązujących w podanej dacie.
+   */
+  public Map<Integer, Integer> getOccupiedMinutes(
+      String entityType, Long entityId, LocalDate date) {
+    ResourceType type = ResourceType.fromEntityType(entityType);
+    LocalDate day = date != null ? date : LocalDate.now();
+
+    Map<DayOfWeek, long[]> occupied = new EnumMap<>(DayOfWeek.class);
+    if (occupancyCache.isReady()) {
+      for (DayOfWeek dow : DayOfWeek.values()) {
+        occupied.put(dow, occupancyCache.occupied(type, entityId, dow, day).orElseThrow());
+      }
+    } else {
+      for (DayOfWeek dow : DayOfWeek.values()) {
+        occupied.put(dow, new long[WeekMask.WORDS_PER_DAY]);
+      }
+      fetchSlotEntities(type, entityId).stream()
+          .filter(slot -> isSlotValidForDate(slot, day))
+          .forEach(
+              slot ->
+                  WeekMask.or(
+                      occupied.get(slot.getDayOfWeek()),
+                      WeekMask.dayBits(slot.getStartTime(), slot.getEndTime())));
+    }
 
-    return new GeneratedFile(fileName, content);
+    Map<Integer, Integer> minutes = new TreeMap<>();
+    occupied.forEach(
+        (dow, bits) ->
+            minutes.put(dow.getValue(), WeekMask.cardinality(bits) * WeekMask.CELL_MINUTES));
+    return minutes;
   }
 
   // =================== HELPERS ===================
 
+  private List<ScheduleSlot> fetchSlotEntities(ResourceType type, Long entityId) {
+    return switch (type) {
+      case STUDENT -> scheduleSlotRepository.findByStudentId(entityId);
+      case THERAPIST -> scheduleSlotRepository.findByTherapistId(entityId);
+      case CLASS -> scheduleSlotRepository.findByStudentClassId(entityId);
+      case ROOM -> scheduleSlotRepository.findByRoomId(entityId);
+    };
+  }
+
   private List<ScheduleSlotDto> fetchSlotsForEntity(String entityType, Long entityId) {
     return switch (entityType.toLowerCase()) {
-      case "student" -> scheduleSlotRepository.findByStudentId(entityId).stream()
-          .map(scheduleMapper::toDto)
-          .toList();
-      case "therapist" -> scheduleSlotRepository.findByTherapistId(entityId).stream()
-          .map(scheduleMapper::toDto)
-          .toList();
-      case "class" -> scheduleSlotRepository.findByStudentClassId(entityId).stream()
-          .map(scheduleMapper::toDto)
-          .toList();
+      case "student" -> scheduleQueryService.getScheduleForStudent(entityId, null, null, null);
+      case "therapist" -> scheduleQueryService.getScheduleForTherapist(entityId, null, null, null);
+      case "class" -> scheduleQueryService.getScheduleForClass(entityId, null, null, null);
       default -> throw new IllegalArgumentException("Nieznany entityType: " + entityType);
     };
   }
@@ -524,6 +699,22 @@ public class ScheduleService {
         .orElse(LocalDate.now());
   }
 
+  // Sale, terapeuci i uczniowie z eksportu - jedno findAllById na typ
+  private ExcelLookupContext loadLookupContext(List<ScheduleSlotDto> slots) {
+    Set<Long> roomIds = new HashSet<>();
+    Set<Long> therapistIds = new HashSet<>();
+    Set<Long> studentIds = new HashSet<>();
+    for (ScheduleSlotDto slot : slots) {
+      if (slot.getRoomId() != null) roomIds.add(slot.getRoomId());
+      if (slot.getTherapistId() != null) therapistIds.add(slot.getTherapistId());
+      if (slot.getStudentIds() != null) studentIds.addAll(slot.getStudentIds());
+    }
+    return ExcelLookupContext.of(
+        roomRepository.findAllById(roomIds),
+        therapistRepository.findAllById(therapistIds),
+        studentRepository.findAllById(studentIds));
+  }
+
   private String buildBaseFileName(String fileNameSuffix) {
     String base = "PlanLekcji";
     if (fileNameSuffix != null && !fileNameSuffix.isBlank()) {
@@ -532,18 +723,16 @@ public class ScheduleService {
     return base;
   }
 
-  private byte[] workbookToBytes(Workbook workbook) throws Exception {
-    try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-      workbook.write(baos);
-      workbook.close();
-      return baos.toByteArray();
-    }
-  }
-
   private LocalDate parseDate(String dateStr) {
     if (dateStr == null || dateStr.isEmpty()) return null;
     return LocalDate.parse(dateStr);
   }
 
-  public record GeneratedFile(String fileName, byte[] content) {}
+  public record GeneratedFile(String fileName, Content content) {}
+
+  /** Treść pliku zapisywana bezpośrednio do strumienia odpowiedzi. */
+  @FunctionalInterface
+  public interface Content {
+    void writeTo(OutputStream out) throws IOException;
+  }
 }
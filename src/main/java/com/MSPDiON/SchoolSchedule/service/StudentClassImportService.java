@@ -3,6 +3,7 @@ package com.MSPDiON.SchoolSchedule.service;
 import com.MSPDiON.SchoolSchedule.model.Department;
 import com.MSPDiON.SchoolSchedule.model.StudentClass;
 import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Service;
 public class StudentClassImportService extends AbstractImportService<StudentClass> {
 
   private final StudentClassRepository classRepository;
+  private final ReferenceDataCache referenceData;
 
   @Override
   protected StudentClass parseRow(String[] cols, int rowNum, List<String> errors) {
@@ -43,5 +45,6 @@ public class StudentClassImportService extends AbstractImportService<StudentClas
   @Override
   protected void saveAll(List<StudentClass> entities) {
     classRepository.saveAll(entities);
+    referenceData.clearStudentClasses();
   }
 }
@@ -3,8 +3,13 @@ package com.MSPDiON.SchoolSchedule.service;
 import com.MSPDiON.SchoolSchedule.dto.StudentClassDto;
 import com.MSPDiON.SchoolSchedule.dto.mapper.StudentClassMapper;
 import com.MSPDiON.SchoolSchedule.exception.StudentClassNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.Student;
 import com.MSPDiON.SchoolSchedule.model.StudentClass;
 import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
+import jakarta.transaction.Transactional;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -14,7 +19,11 @@ import org.springframework.stereotype.Service;
 public class StudentClassService {
 
   private final StudentClassRepository studentClassRepository;
+  private final StudentRepository studentRepository;
   private final StudentClassMapper studentClassMapper;
+  private final ReferenceDataCache referenceData;
+  private final ScheduleVersions versions;
+  private final ScheduleService scheduleService;
 
   public List<StudentClassDto> getAll() {
     return studentClassRepository.findAll().stream().map(studentClassMapper::toDto).toList();
@@ -31,6 +40,7 @@ public class StudentClassService {
   public StudentClassDto create(StudentClassDto dto) {
     StudentClass entity = studentClassMapper.toEntity(dto);
     StudentClass saved = studentClassRepository.save(entity);
+    referenceData.put(saved);
     return studentClassMapper.toDto(saved);
   }
 
@@ -44,13 +54,24 @@ public class StudentClassService {
     existing.setDepartment(dto.getDepartment());
 
     StudentClass saved = studentClassRepository.save(existing);
+    referenceData.put(saved);
     return studentClassMapper.toDto(saved);
   }
 
+  @Transactional
   public void delete(Long id) {
     if (!studentClassRepository.existsById(id)) {
       throw new StudentClassNotFoundException(id);
     }
+    // uczniowie klasy są usuwani przez orphanRemoval, a ich przypisania do slotów kaskadą w bazie
+    scheduleService.detachStudents(
+        studentRepository.findByStudentClassId(id).stream().map(Student::getId).toList());
     studentClassRepository.deleteById(id);
+    AfterCommit.run(
+        () -> {
+          referenceData.evictStudentClass(id);
+          referenceData.clearStudents();
+          versions.bumpGlobal();
+        });
   }
 }
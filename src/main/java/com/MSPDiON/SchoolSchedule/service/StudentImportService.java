@@ -6,6 +6,8 @@ import com.MSPDiON.SchoolSchedule.model.Student;
 import com.MSPDiON.SchoolSchedule.model.StudentClass;
 import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
 import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -19,6 +21,8 @@ public class StudentImportService extends AbstractImportService<Student> {
 
   private final StudentRepository studentRepository;
   private final StudentClassRepository classRepository;
+  private final ReferenceDataCache referenceData;
+  private final ScheduleVersions versions;
 
   @Override
   protected Student parseRow(String[] cols, int rowNum, List<String> errors)
@@ -61,6 +65,8 @@ public class StudentImportService extends AbstractImportService<Student> {
   @Override
   protected void saveAll(List<Student> entities) {
     studentRepository.saveAll(entities);
+    referenceData.clearStudents();
+    versions.bumpGlobal();
   }
 
   private void validateBasicFields(
@@ -6,13 +6,19 @@ import com.MSPDiON.SchoolSchedule.dto.mapper.StudentMapper;
 import com.MSPDiON.SchoolSchedule.exception.InvalidStudentTimeException;
 import com.MSPDiON.SchoolSchedule.exception.StudentClassNotFoundException;
 import com.MSPDiON.SchoolSchedule.exception.StudentNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
 import com.MSPDiON.SchoolSchedule.model.Student;
 import com.MSPDiON.SchoolSchedule.model.StudentClass;
 import com.MSPDiON.SchoolSchedule.repository.AvailabilityRepository;
 import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
 import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
+import jakarta.transaction.Transactional;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -24,33 +30,24 @@ public class StudentService {
   private final StudentClassRepository studentClassRepository;
   private final AvailabilityRepository availabilityRepository;
   private final StudentMapper studentMapper;
+  private final AvailabilityService availabilityService;
+  private final ReferenceDataCache referenceData;
+  private final ScheduleVersions versions;
+  private final ScheduleService scheduleService;
 
   public List<StudentDto> getAll() {
-    return studentRepository.findAll().stream()
-        .map(
-            s ->
-                studentMapper.toDto(
-                    s, availabilityRepository.findByEntityIdAndEntityType(s.getId(), "STUDENT")))
-        .toList();
+    return toDtos(studentRepository.findAll());
   }
 
   public List<StudentDto> getAllSortedByLastName() {
-    return studentRepository.findAll().stream()
-        .sorted((a, b) -> a.getLastName().compareToIgnoreCase(b.getLastName()))
-        .map(
-            s ->
-                studentMapper.toDto(
-                    s, availabilityRepository.findByEntityIdAndEntityType(s.getId(), "STUDENT")))
-        .toList();
+    return toDtos(
+        studentRepository.findAll().stream()
+            .sorted((a, b) -> a.getLastName().compareToIgnoreCase(b.getLastName()))
+            .toList());
   }
 
   public List<StudentDto> getAllByClassId(Long classId) {
-    return studentRepository.findByStudentClassId(classId).stream()
-        .map(
-            s ->
-                studentMapper.toDto(
-                    s, availabilityRepository.findByEntityIdAndEntityType(s.getId(), "STUDENT")))
-        .toList();
+    return toDtos(studentRepository.findByStudentClassId(classId));
   }
 
   public StudentDto getById(Long id) {
@@ -74,6 +71,8 @@ public class StudentService {
     }
 
     Student saved = studentRepository.save(student);
+    referenceData.put(saved);
+    versions.bump(ResourceType.STUDENT, saved.getId());
     return studentMapper.toDto(
         saved, availabilityRepository.findByEntityIdAndEntityType(saved.getId(), "STUDENT"));
   }
@@ -100,12 +99,28 @@ public class StudentService {
     }
 
     Student updated = studentRepository.save(existing);
+    referenceData.put(updated);
+    versions.bump(ResourceType.STUDENT, updated.getId());
     return studentMapper.toDto(
         updated, availabilityRepository.findByEntityIdAndEntityType(updated.getId(), "STUDENT"));
   }
 
+  @Transactional
   public void delete(Long id) {
+    scheduleService.detachStudents(List.of(id));
     studentRepository.deleteById(id);
+    AfterCommit.run(
+        () -> {
+          referenceData.evictStudent(id);
+          versions.bump(ResourceType.STUDENT, id);
+        });
+  }
+
+  private List<StudentDto> toDtos(List<Student> students) {
+    Map<Long, List<Availability>> availabilities =
+        availabilityService.getGroupedByEntityIds(
+            "STUDENT", students.stream().map(Student::getId).toList());
+    return students.stream().map(s -> studentMapper.toDto(s, availabilities)).toList();
   }
 
   private void validateTimes(LocalTime arrival, LocalTime departure) {
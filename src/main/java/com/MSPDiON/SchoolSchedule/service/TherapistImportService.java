@@ -4,6 +4,8 @@ import com.MSPDiON.SchoolSchedule.model.Department;
 import com.MSPDiON.SchoolSchedule.model.Therapist;
 import com.MSPDiON.SchoolSchedule.model.TherapistRole;
 import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +16,8 @@ import org.springframework.stereotype.Service;
 public class TherapistImportService extends AbstractImportService<Therapist> {
 
   private final TherapistRepository therapistRepository;
+  private final ReferenceDataCache referenceData;
+  private final ScheduleVersions versions;
 
   @Override
   protected Therapist parseRow(String[] cols, int rowNum, List<String> errors) {
@@ -57,5 +61,7 @@ public class TherapistImportService extends AbstractImportService<Therapist> {
   @Override
   protected void saveAll(List<Therapist> entities) {
     therapistRepository.saveAll(entities);
+    referenceData.clearTherapists();
+    versions.bumpGlobal();
   }
 }
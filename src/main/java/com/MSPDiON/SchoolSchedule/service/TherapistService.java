@@ -4,10 +4,15 @@ import com.MSPDiON.SchoolSchedule.dto.CreateTherapistDto;
 import com.MSPDiON.SchoolSchedule.dto.TherapistDto;
 import com.MSPDiON.SchoolSchedule.dto.mapper.TherapistMapper;
 import com.MSPDiON.SchoolSchedule.exception.TherapistNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
 import com.MSPDiON.SchoolSchedule.model.Therapist;
 import com.MSPDiON.SchoolSchedule.repository.AvailabilityRepository;
 import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.index.ReferenceDataCache;
+import com.MSPDiON.SchoolSchedule.service.index.ScheduleVersions;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -19,14 +24,15 @@ public class TherapistService {
   private final AvailabilityRepository availabilityRepository;
   private final TherapistMapper therapistMapper;
   private final AvailabilityService availabilityService;
+  private final ReferenceDataCache referenceData;
+  private final ScheduleVersions versions;
 
   public List<TherapistDto> getAll() {
-    return therapistRepository.findAll().stream()
-        .map(
-            t ->
-                therapistMapper.toDto(
-                    t, availabilityRepository.findByEntityIdAndEntityType(t.getId(), "THERAPIST")))
-        .toList();
+    List<Therapist> therapists = therapistRepository.findAll();
+    Map<Long, List<Availability>> availabilities =
+        availabilityService.getGroupedByEntityIds(
+            "THERAPIST", therapists.stream().map(Therapist::getId).toList());
+    return therapists.stream().map(t -> therapistMapper.toDto(t, availabilities)).toList();
   }
 
   public TherapistDto getById(Long id) {
@@ -40,6 +46,8 @@ public class TherapistService {
 
   public TherapistDto create(CreateTherapistDto dto) {
     Therapist saved = therapistRepository.save(therapistMapper.toEntity(dto));
+    referenceData.put(saved);
+    versions.bump(ResourceType.THERAPIST, saved.getId());
     return therapistMapper.toDto(
         saved, availabilityRepository.findByEntityIdAndEntityType(saved.getId(), "THERAPIST"));
   }
@@ -54,11 +62,15 @@ public class TherapistService {
     existing.setDepartments(dto.getDepartments());
 
     Therapist updated = therapistRepository.save(existing);
+    referenceData.put(updated);
+    versions.bump(ResourceType.THERAPIST, updated.getId());
     return therapistMapper.toDto(
         updated, availabilityRepository.findByEntityIdAndEntityType(updated.getId(), "THERAPIST"));
   }
 
   public void delete(Long id) {
     therapistRepository.deleteById(id);
+    referenceData.evictTherapist(id);
+    versions.bump(ResourceType.THERAPIST, id);
   }
 }
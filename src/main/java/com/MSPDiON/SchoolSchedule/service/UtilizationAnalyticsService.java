@@ -0,0 +1,181 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import com.MSPDiON.SchoolSchedule.dto.FreeWindowDto;
+import com.MSPDiON.SchoolSchedule.dto.ResourceUtilizationDto;
+import com.MSPDiON.SchoolSchedule.dto.UtilizationReportDto;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
+import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindowCache;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindows;
+import com.MSPDiON.SchoolSchedule.service.index.TimetableReadModel;
+import jakarta.annotation.PreDestroy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+
+/**
+ * Obciążenie sal i terapeutów w tygodniu obowiązującym w danej dacie. Dla każdego podmiotu i dnia
+ * sloty zamieniane są na posortowane granice (koniec przed początkiem w tej samej minucie), a
+ * jeden przebieg po nich daje zajęte minuty, maksymalną liczbę równoległych zajęć i przerwy.
+ * Podmioty liczone są równolegle na osobnej puli fork-join.
+ */
+@Service
+public class UtilizationAnalyticsService {
+
+  private final TimetableReadModel timetableReadModel;
+  private final AvailabilityWindowCache availabilityCache;
+  private final RoomRepository roomRepository;
+  private final TherapistRepository therapistRepository;
+  private final ForkJoinPool pool = new ForkJoinPool();
+
+  public UtilizationAnalyticsService(
+      TimetableReadModel timetableReadModel,
+      AvailabilityWindowCache availabilityCache,
+      RoomRepository roomRepository,
+      TherapistRepository therapistRepository) {
+    this.timetableReadModel = timetableReadModel;
+    this.availabilityCache = availabilityCache;
+    this.roomRepository = roomRepository;
+    this.therapistRepository = therapistRepository;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    pool.shutdownNow();
+  }
+
+  public UtilizationReportDto getUtilization(LocalDate date) {
+    LocalDate day = date != null ? date : LocalDate.now();
+
+    List<ScheduleSlotSnapshot> active =
+        timetableReadModel.allSlots().stream().filter(s -> isActiveOn(s, day)).toList();
+    Map<Long, List<ScheduleSlotSnapshot>> byRoom =
+        active.stream().collect(Collectors.groupingBy(ScheduleSlotSnapshot::roomId));
+    Map<Long, List<ScheduleSlotSnapshot>> byTherapist =
+        active.stream().collect(Collectors.groupingBy(ScheduleSlotSnapshot::therapistId));
+
+    List<Entity> rooms =
+        roomRepository.findAll().stream().map(r -> new Entity(r.getId(), r.getName())).toList();
+    List<Entity> therapists =
+        therapistRepository.findAll().stream()
+            .map(t -> new Entity(t.getId(), t.getFirstName() + " " + t.getLastName()))
+            .toList();
+
+    List<ResourceUtilizationDto> roomStats =
+        pool.submit(
+                () ->
+                    rooms.parallelStream()
+                        .map(r -> analyze(r, byRoom.getOrDefault(r.id(), List.of()), null))
+                        .toList())
+            .join();
+    List<ResourceUtilizationDto> therapistStats =
+        pool.submit(
+                () ->
+                    therapists.parallelStream()
+                        .map(
+                            t ->
+                                analyze(
+                                    t,
+                                    byTherapist.getOrDefault(t.id(), List.of()),
+                                    availabilityCache.get(ResourceType.THERAPIST, t.id())))
+                        .toList())
+            .join();
+
+    return UtilizationReportDto.builder()
+        .date(day.toString())
+        .rooms(roomStats)
+        .therapists(therapistStats)
+        .build();
+  }
+
+  private static ResourceUtilizationDto analyze(
+      Entity entity, List<ScheduleSlotSnapshot> slots, AvailabilityWindows windows) {
+    int booked = 0;
+    int peak = 0;
+    int idle = 0;
+    List<FreeWindowDto> gaps = new ArrayList<>();
+
+    for (DayOfWeek dow : DayOfWeek.values()) {
+      List<ScheduleSlotSnapshot> daySlots =
+          slots.stream().filter(s -> s.dayOfWeek() == dow).toList();
+      if (daySlots.isEmpty()) continue;
+
+      // Granica zakodowana jako minuta * 2 + (1 = początek), więc koniec sortuje się przed
+      // początkiem w tej samej minucie i stykające się zajęcia nie dają przerwy ani nakładania.
+      int[] edges = new int[daySlots.size() * 2];
+      for (int i = 0; i < daySlots.size(); i++) {
+        edges[i * 2] = minutes(daySlots.get(i).startTime()) * 2 + 1;
+        edges[i * 2 + 1] = minutes(daySlots.get(i).endTime()) * 2;
+      }
+      Arrays.sort(edges);
+
+      int running = 0;
+      int busySince = -1;
+      int lastBusyEnd = -1;
+      for (int edge : edges) {
+        int minute = edge >> 1;
+        if ((edge & 1) == 1) {
+          if (running++ == 0) {
+            if (lastBusyEnd >= 0 && minute > lastBusyEnd) {
+              idle += minute - lastBusyEnd;
+              gaps.add(gap(dow, lastBusyEnd, minute));
+            }
+            busySince = minute;
+          }
+          peak = Math.max(peak, running);
+        } else if (--running == 0) {
+          booked += minute - busySince;
+          lastBusyEnd = minute;
+        }
+      }
+    }
+
+    Integer available = null;
+    Double utilization = null;
+    if (windows != null && windows.isRestricted()) {
+      int total = 0;
+      for (DayOfWeek dow : DayOfWeek.values()) total += windows.totalMinutes(dow);
+      available = total;
+      utilization = total > 0 ? (double) booked / total : null;
+    }
+
+    return ResourceUtilizationDto.builder()
+        .entityId(entity.id())
+        .name(entity.name())
+        .bookedMinutes(booked)
+        .availableMinutes(available)
+        .utilization(utilization)
+        .peakConcurrency(peak)
+        .idleMinutes(idle)
+        .idleGaps(gaps)
+        .build();
+  }
+
+  private static FreeWindowDto gap(DayOfWeek day, int from, int to) {
+    return FreeWindowDto.builder()
+        .dayOfWeek(day.getValue())
+        .startTime(LocalTime.of(from / 60, from % 60).toString())
+        .endTime(LocalTime.of(to / 60, to % 60).toString())
+        .build();
+  }
+
+  private static boolean isActiveOn(ScheduleSlotSnapshot slot, LocalDate date) {
+    return !slot.validFrom().isAfter(date)
+        && (slot.validTo() == null || !slot.validTo().isBefore(date));
+  }
+
+  private static int minutes(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  private record Entity(Long id, String name) {}
+}
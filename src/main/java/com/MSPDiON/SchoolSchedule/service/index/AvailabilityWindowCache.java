@@ -0,0 +1,74 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.AvailabilityRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Okna dostępności terapeutów i uczniów w pamięci. Wczytywane jednym zapytaniem podczas
+ * inicjalizacji beana, zanim trafi do reguł walidacji i solvera, więc {@link #get} nigdy nie
+ * odpytuje bazy (wątki puli walidacji działają poza transakcją wywołującego). Odświeżane per
+ * podmiot przez AvailabilityService w wątku i transakcji zmiany. Unieważnianie jest lokalne dla
+ * instancji — przy wielu instancjach zmiany z innego węzła nie są widoczne do restartu.
+ */
+@Slf4j
+@Component
+public class AvailabilityWindowCache {
+
+  private final AvailabilityRepository availabilityRepository;
+
+  private final Map<Key, AvailabilityWindows> windows = new ConcurrentHashMap<>();
+
+  public AvailabilityWindowCache(AvailabilityRepository availabilityRepository) {
+    this.availabilityRepository = availabilityRepository;
+  }
+
+  @PostConstruct
+  public synchronized void preload() {
+    Map<Key, List<Availability>> grouped =
+        availabilityRepository.findAll().stream()
+            .filter(a -> keyOf(a.getEntityType(), a.getEntityId()) != null)
+            .collect(Collectors.groupingBy(a -> keyOf(a.getEntityType(), a.getEntityId())));
+
+    windows.clear();
+    grouped.forEach((key, rows) -> windows.put(key, AvailabilityWindows.of(rows)));
+    log.info("Wczytano okna dostępności dla {} podmiotów", grouped.size());
+  }
+
+  /** Okna podmiotu; brak wpisu oznacza brak ograniczeń. Nie odpytuje bazy. */
+  public AvailabilityWindows get(ResourceType type, Long entityId) {
+    return windows.getOrDefault(new Key(type, entityId), AvailabilityWindows.NONE);
+  }
+
+  /** Przeładowuje okna podmiotu po zmianie jego dostępności. */
+  public void refresh(String entityType, Long entityId) {
+    Key key = keyOf(entityType, entityId);
+    if (key == null) return;
+    windows.put(key, load(key));
+  }
+
+  private AvailabilityWindows load(Key key) {
+    return AvailabilityWindows.of(
+        availabilityRepository.findByEntityTypeAndEntityIdIn(
+            key.type().name(), List.of(key.entityId())));
+  }
+
+  private static Key keyOf(String entityType, Long entityId) {
+    if (entityType == null || entityId == null) return null;
+    return switch (entityType.toUpperCase(Locale.ROOT)) {
+      case "THERAPIST" -> new Key(ResourceType.THERAPIST, entityId);
+      case "STUDENT" -> new Key(ResourceType.STUDENT, entityId);
+      default -> null;
+    };
+  }
+
+  private record Key(ResourceType type, Long entityId) {}
+}
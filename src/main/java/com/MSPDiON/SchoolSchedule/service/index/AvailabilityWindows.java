@@ -0,0 +1,124 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.utils.WeekMask;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Okna dostępności jednego podmiotu: dla każdego dnia posortowane, scalone przedziały w minutach
+ * od północy, zapisane płasko jako [start0, end0, start1, end1, ...].
+ */
+public final class AvailabilityWindows {
+
+  /** Podmiot bez żadnych wpisów dostępności - nie jest ograniczany. */
+  public static final AvailabilityWindows NONE = new AvailabilityWindows(null);
+
+  private final int[][] byDay;
+
+  private AvailabilityWindows(int[][] byDay) {
+    this.byDay = byDay;
+  }
+
+  public static AvailabilityWindows of(List<Availability> rows) {
+    if (rows.isEmpty()) return NONE;
+
+    int[][] byDay = new int[7][];
+    for (int day = 1; day <= 7; day++) {
+      int dayOfWeek = day;
+      List<int[]> intervals =
+          rows.stream()
+              .filter(a -> a.getDayOfWeek() == dayOfWeek)
+              .map(a -> new int[] {minutes(a.getStartTime()), minutes(a.getEndTime())})
+              .filter(i -> i[0] < i[1])
+              .sorted(Comparator.comparingInt(i -> i[0]))
+              .toList();
+      byDay[day - 1] = merge(intervals);
+    }
+    return new AvailabilityWindows(byDay);
+  }
+
+  public boolean isRestricted() {
+    return byDay != null;
+  }
+
+  /** Suma minut okien w danym dniu (0 dla podmiotu bez ograniczeń). */
+  public int totalMinutes(DayOfWeek day) {
+    if (byDay == null) return 0;
+    int[] windows = byDay[day.getValue() - 1];
+    int total = 0;
+    for (int i = 0; i < windows.length; i += 2) {
+      total += windows[i + 1] - windows[i];
+    }
+    return total;
+  }
+
+  /**
+   * Okna jako maska tygodnia (wolne = dostępny). Podmiot bez ograniczeń ma wolny cały tydzień,
+   * tak jak traktuje go walidacja slotów.
+   */
+  public WeekMask toWeekMask() {
+    if (byDay == null) return WeekMask.allFree();
+    WeekMask mask = new WeekMask();
+    for (int day = 1; day <= 7; day++) {
+      int[] windows = byDay[day - 1];
+      for (int i = 0; i < windows.length; i += 2) {
+        mask.free(day, time(windows[i]), time(windows[i + 1]));
+      }
+    }
+    return mask;
+  }
+
+  /** Czy przedział mieści się w sumie okien dostępności danego dnia. */
+  public boolean covers(DayOfWeek day, LocalTime start, LocalTime end) {
+    if (byDay == null) return true;
+    int[] windows = byDay[day.getValue() - 1];
+    int from = minutes(start);
+    int to = minutes(end);
+
+    // Ostatnie okno zaczynające się nie później niż start
+    int lo = 0;
+    int hi = windows.length / 2 - 1;
+    int found = -1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (windows[mid * 2] <= from) {
+        found = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return found >= 0 && windows[found * 2 + 1] >= to;
+  }
+
+  // Łączy nachodzące i stykające się przedziały
+  private static int[] merge(List<int[]> sorted) {
+    List<int[]> merged = new ArrayList<>();
+    for (int[] interval : sorted) {
+      int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && interval[0] <= last[1]) {
+        last[1] = Math.max(last[1], interval[1]);
+      } else {
+        merged.add(new int[] {interval[0], interval[1]});
+      }
+    }
+    int[] flat = new int[merged.size() * 2];
+    for (int i = 0; i < merged.size(); i++) {
+      flat[i * 2] = merged.get(i)[0];
+      flat[i * 2 + 1] = merged.get(i)[1];
+    }
+    return flat;
+  }
+
+  private static int minutes(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  private static LocalTime time(int minutes) {
+    return LocalTime.ofSecondOfDay(minutes * 60L);
+  }
+}
@@ -0,0 +1,273 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache wygenerowanych plików planu adresowany treścią: kluczem jest SHA-256 wszystkich danych
+ * wejściowych eksportu (sloty, nazwy, typ, sufiks). Każda zmiana slotu, ucznia, terapeuty czy
+ * sali daje inny klucz, więc wpis nie wymaga jawnego unieważniania - nieużywane wypadają z LRU.
+ *
+ * <p>Pamięć ograniczona jest sumą bajtów; wypchnięte wpisy trafiają opcjonalnie do katalogu na
+ * dysku (też ograniczonego liczbą plików). Przy braku w cache plik płynie do odpowiedzi
+ * strumieniowo, a kopia jest zbierana tylko do {@code max-entry-bytes} - większe pliki nie są
+ * zapamiętywane, żeby nie trzymać w pamięci całego skoroszytu SXSSF.
+ */
+@Slf4j
+@Component
+public class GeneratedFileCache {
+
+  // Zmiana układu arkusza musi unieważnić pliki zapisane na dysku przed restartem
+  private static final String FORMAT_VERSION = "xlsx-1";
+
+  private final long maxBytes;
+  private final int maxEntryBytes;
+  private final Path spillDir;
+  private final int spillMaxFiles;
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Counter hits;
+  private final Counter misses;
+  private long bytes = 0;
+
+  public GeneratedFileCache(
+      MeterRegistry meterRegistry,
+      @Value("${schedule.export.cache.max-bytes:67108864}") long maxBytes,
+      @Value("${schedule.export.cache.max-entry-bytes:4194304}") int maxEntryBytes,
+      @Value("${schedule.export.cache.spill-dir:}") String spillDir,
+      @Value("${schedule.export.cache.spill-max-files:1000}") int spillMaxFiles) {
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = (int) Math.min(maxEntryBytes, maxBytes);
+    this.spillMaxFiles = spillMaxFiles;
+    this.spillDir = spillDir.isBlank() ? null : createDir(Path.of(spillDir));
+    this.hits =
+        Counter.builder("schedule.export.cache.requests")
+            .tag("result", "hit")
+            .register(meterRegistry);
+    this.misses =
+        Counter.builder("schedule.export.cache.requests")
+            .tag("result", "miss")
+            .register(meterRegistry);
+    Gauge.builder("schedule.export.cache.size", this, GeneratedFileCache::memoryBytes)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /** Klucz z kanonicznego opisu danych wejściowych eksportu. */
+  public String keyOf(String canonicalInput) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+      digest.update(canonicalInput.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Zapisuje plik z cache do strumienia, a przy braku generuje go przez {@code generator},
+   * jednocześnie wysyłając do strumienia i zapamiętując, jeśli zmieści się w {@code
+   * max-entry-bytes}.
+   */
+  public void writeTo(String key, OutputStream out, Generator generator) throws IOException {
+    byte[] cached = get(key);
+    if (cached != null) {
+      hits.increment();
+      out.write(cached);
+      return;
+    }
+    if (spillDir != null && copySpilled(key, out)) {
+      hits.increment();
+      return;
+    }
+
+    misses.increment();
+    BoundedCopy copy = new BoundedCopy(maxEntryBytes);
+    generator.writeTo(new TeeOutputStream(out, copy));
+    if (!copy.overflowed()) put(key, copy.toByteArray());
+  }
+
+  // Plik otwierany raz: usunięty przez trimSpillDir przed otwarciem to zwykły brak w cache,
+  // a po otwarciu odczyt trwa z już otwartego deskryptora.
+  private boolean copySpilled(String key, OutputStream out) throws IOException {
+    InputStream in;
+    try {
+      in = Files.newInputStream(spillFile(key));
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    try (in) {
+      in.transferTo(out);
+    }
+    return true;
+  }
+
+  private synchronized byte[] get(String key) {
+    return entries.get(key);
+  }
+
+  private void put(String key, byte[] content) {
+    List<Map.Entry<String, byte[]>> evicted;
+    synchronized (this) {
+      if (content.length > maxBytes) return;
+      byte[] previous = entries.put(key, content);
+      bytes += content.length - (previous != null ? previous.length : 0);
+      evicted = evictOverflow();
+    }
+    evicted.forEach(e -> spill(e.getKey(), e.getValue()));
+  }
+
+  // Usuwa najdawniej używane wpisy ponad limit; wywoływane pod lockiem
+  private List<Map.Entry<String, byte[]>> evictOverflow() {
+    List<Map.Entry<String, byte[]>> evicted = new ArrayList<>();
+    Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+    while (bytes > maxBytes && it.hasNext()) {
+      Map.Entry<String, byte[]> eldest = it.next();
+      evicted.add(Map.entry(eldest.getKey(), eldest.getValue()));
+      bytes -= eldest.getValue().length;
+      it.remove();
+    }
+    return evicted;
+  }
+
+  private void spill(String key, byte[] content) {
+    if (spillDir == null) return;
+    try {
+      Path tmp = Files.createTempFile(spillDir, key, ".tmp");
+      Files.write(tmp, content);
+      Files.move(tmp, spillFile(key), StandardCopyOption.ATOMIC_MOVE);
+      trimSpillDir();
+    } catch (IOException e) {
+      log.warn("Nie udało się zapisać pliku cache {} na dysk: {}", key, e.getMessage());
+    }
+  }
+
+  private void trimSpillDir() throws IOException {
+    try (Stream<Path> files = Files.list(spillDir)) {
+      List<Path> spilled =
+          files
+              .filter(p -> p.toString().endsWith(".xlsx"))
+              .sorted(Comparator.comparingLong(GeneratedFileCache::lastModified))
+              .toList();
+      for (int i = 0; i < spilled.size() - spillMaxFiles; i++) {
+        Files.deleteIfExists(spilled.get(i));
+      }
+    }
+  }
+
+  private Path spillFile(String key) {
+    return spillDir.resolve(key + ".xlsx");
+  }
+
+  private synchronized long memoryBytes() {
+    return bytes;
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static Path createDir(Path dir) {
+    try {
+      return Files.createDirectories(dir);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Nie można utworzyć katalogu cache eksportu: " + dir, e);
+    }
+  }
+
+  @FunctionalInterface
+  public interface Generator {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  /** Bufor kopii do cache, porzucany po przekroczeniu limitu wpisu. */
+  private static final class BoundedCopy extends OutputStream {
+
+    private final int limit;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    BoundedCopy(int limit) {
+      this.limit = limit;
+    }
+
+    boolean overflowed() {
+      return buffer == null;
+    }
+
+    byte[] toByteArray() {
+      return buffer.toByteArray();
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      if (buffer == null) return;
+      if (buffer.size() + len > limit) {
+        buffer = null;
+        return;
+      }
+      buffer.write(b, off, len);
+    }
+  }
+
+  /** Zapis jednocześnie do odpowiedzi i do bufora cache. */
+  private static final class TeeOutputStream extends OutputStream {
+
+    private final OutputStream first;
+    private final OutputStream second;
+
+    TeeOutputStream(OutputStream first, OutputStream second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      first.write(b);
+      second.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      first.write(b, off, len);
+      second.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      first.flush();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Indeksy używane przez walidację nanoszą zmiany slotów przed commitem, gdy transakcja wciąż
+ * trzyma blokady zasobów - następna transakcja czekająca na tę samą blokadę widzi już nowy stan.
+ * Jeśli transakcja zostanie jednak wycofana, zarejestrowane cofnięcia przywracają poprzedni stan.
+ */
+final class IndexTransactions {
+
+  private IndexTransactions() {}
+
+  /**
+   * Rejestruje cofnięcie zmiany indeksu {@code owner} na wypadek wycofania bieżącej transakcji.
+   * Cofnięcia wykonują się w odwrotnej kolejności niż zmiany; poza transakcją nic nie robi.
+   */
+  @SuppressWarnings("unchecked")
+  static void undoOnRollback(Object owner, Runnable undo) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+    Deque<Runnable> undos = (Deque<Runnable>) TransactionSynchronizationManager.getResource(owner);
+    if (undos == null) {
+      Deque<Runnable> created = new ArrayDeque<>();
+      TransactionSynchronizationManager.bindResource(owner, created);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+              if (status != STATUS_COMMITTED) created.forEach(Runnable::run);
+            }
+          });
+      undos = created;
+    }
+    undos.push(undo);
+  }
+}
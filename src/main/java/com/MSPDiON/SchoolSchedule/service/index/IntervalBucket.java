@@ -0,0 +1,85 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Niemutowalna, posortowana po godzinie rozpoczęcia lista slotów jednego zasobu w jednym dniu
+ * tygodnia. Zmiany tworzą nową instancję, dzięki czemu odczyty nie wymagają blokad.
+ */
+final class IntervalBucket {
+
+  static final IntervalBucket EMPTY = new IntervalBucket(new ScheduleSlotSnapshot[0]);
+
+  private static final Comparator<ScheduleSlotSnapshot> BY_START =
+      Comparator.comparing(ScheduleSlotSnapshot::startTime)
+          .thenComparing(ScheduleSlotSnapshot::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  private final ScheduleSlotSnapshot[] slots;
+
+  private IntervalBucket(ScheduleSlotSnapshot[] slots) {
+    this.slots = slots;
+  }
+
+  IntervalBucket with(ScheduleSlotSnapshot slot) {
+    ScheduleSlotSnapshot[] copy = Arrays.copyOf(slots, slots.length + 1);
+    copy[slots.length] = slot;
+    Arrays.sort(copy, BY_START);
+    return new IntervalBucket(copy);
+  }
+
+  IntervalBucket without(Long slotId) {
+    List<ScheduleSlotSnapshot> remaining = new ArrayList<>(slots.length);
+    for (ScheduleSlotSnapshot s : slots) {
+      if (!s.id().equals(slotId)) remaining.add(s);
+    }
+    return remaining.isEmpty()
+        ? EMPTY
+        : new IntervalBucket(remaining.toArray(new ScheduleSlotSnapshot[0]));
+  }
+
+  boolean isEmpty() {
+    return slots.length == 0;
+  }
+
+  /** Przekazuje sloty nachodzące na kandydata (godziny i okres obowiązywania), z pominięciem jego. */
+  void forEachOverlapping(ScheduleSlotSnapshot candidate, Consumer<ScheduleSlotSnapshot> action) {
+    int limit = firstStartingAtOrAfter(candidate);
+    for (int i = 0; i < limit; i++) {
+      ScheduleSlotSnapshot s = slots[i];
+      if (s.endTime().isAfter(candidate.startTime())
+          && !s.isSameSlot(candidate)
+          && s.overlapsValidity(candidate)) {
+        action.accept(s);
+      }
+    }
+  }
+
+  /** Przekazuje wszystkie sloty dnia, których okres obowiązywania nachodzi na kandydata. */
+  void forEachInValidity(ScheduleSlotSnapshot candidate, Consumer<ScheduleSlotSnapshot> action) {
+    for (ScheduleSlotSnapshot s : slots) {
+      if (!s.isSameSlot(candidate) && s.overlapsValidity(candidate)) {
+        action.accept(s);
+      }
+    }
+  }
+
+  /** Indeks pierwszego slotu, który zaczyna się nie wcześniej niż kończy się kandydat. */
+  private int firstStartingAtOrAfter(ScheduleSlotSnapshot candidate) {
+    int low = 0;
+    int high = slots.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (slots[mid].startTime().isBefore(candidate.endTime())) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,70 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.utils.WeekMask;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zajętość jednego zasobu w jednym dniu tygodnia dla jednego okresu obowiązywania: OR masek
+ * wszystkich slotów o tym okresie. Niezmienna; zmiana slotu tworzy nową listę map.
+ */
+record OccupancyBitmap(
+    LocalDate validFrom, LocalDate validTo, long[] bits, List<ScheduleSlotSnapshot> slots) {
+
+  // Rozmiar tablicy bitów wraz z nagłówkiem obiektu i samym rekordem (przybliżenie)
+  static final long BYTES = WeekMask.WORDS_PER_DAY * 8L + 16 + 32;
+
+  static List<OccupancyBitmap> build(Collection<ScheduleSlotSnapshot> slots) {
+    Map<List<LocalDate>, List<ScheduleSlotSnapshot>> byValidity = new LinkedHashMap<>();
+    for (ScheduleSlotSnapshot slot : slots) {
+      byValidity.computeIfAbsent(validityKey(slot), k -> new ArrayList<>()).add(slot);
+    }
+    List<OccupancyBitmap> result = new ArrayList<>();
+    byValidity.values().forEach(group -> result.add(of(group)));
+    return List.copyOf(result);
+  }
+
+  static List<OccupancyBitmap> with(List<OccupancyBitmap> bitmaps, ScheduleSlotSnapshot slot) {
+    List<ScheduleSlotSnapshot> all = new ArrayList<>();
+    bitmaps.forEach(b -> all.addAll(b.slots()));
+    all.add(slot);
+    return build(all);
+  }
+
+  static List<OccupancyBitmap> without(List<OccupancyBitmap> bitmaps, Long slotId) {
+    List<ScheduleSlotSnapshot> all = new ArrayList<>();
+    bitmaps.forEach(
+        b -> b.slots().stream().filter(s -> !s.id().equals(slotId)).forEach(all::add));
+    return build(all);
+  }
+
+  boolean isValidOn(LocalDate date) {
+    return (validFrom == null || !validFrom.isAfter(date))
+        && (validTo == null || !validTo.isBefore(date));
+  }
+
+  boolean overlapsValidity(ScheduleSlotSnapshot candidate) {
+    LocalDate thisTo = validTo != null ? validTo : LocalDate.MAX;
+    LocalDate otherTo = candidate.validTo() != null ? candidate.validTo() : LocalDate.MAX;
+    LocalDate thisFrom = validFrom != null ? validFrom : LocalDate.MIN;
+    LocalDate otherFrom = candidate.validFrom() != null ? candidate.validFrom() : LocalDate.MIN;
+    return !thisFrom.isAfter(otherTo) && !otherFrom.isAfter(thisTo);
+  }
+
+  private static OccupancyBitmap of(List<ScheduleSlotSnapshot> group) {
+    long[] bits = new long[WeekMask.WORDS_PER_DAY];
+    group.forEach(s -> WeekMask.or(bits, WeekMask.dayBits(s.startTime(), s.endTime())));
+    ScheduleSlotSnapshot first = group.get(0);
+    return new OccupancyBitmap(first.validFrom(), first.validTo(), bits, List.copyOf(group));
+  }
+
+  private static List<LocalDate> validityKey(ScheduleSlotSnapshot slot) {
+    return Arrays.asList(slot.validFrom(), slot.validTo());
+  }
+}
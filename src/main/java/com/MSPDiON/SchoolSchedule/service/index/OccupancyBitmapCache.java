@@ -0,0 +1,171 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import com.MSPDiON.SchoolSchedule.utils.WeekMask;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Mapy bitowe zajętości (komórki 5-minutowe) dla każdego terapeuty, sali, ucznia i klasy, dnia
+ * tygodnia i okresu obowiązywania. Zapytania o wolny czas i obciążenie sprowadzają się do
+ * operacji na słowach long zamiast zapytań SQL. Aktualizowane przy każdej zmianie slotu
+ * (ScheduleSlotChangedEvent) przed commitem, jak ScheduleConflictIndex, przy starcie budowane
+ * równolegle per zasób. Jak indeks konfliktów widzi tylko zmiany z własnej instancji, więc jest
+ * domyślnie wyłączone ({@code schedule.occupancy-cache.enabled}).
+ */
+@Slf4j
+@Component
+public class OccupancyBitmapCache {
+
+  private final ScheduleSlotRepository scheduleSlotRepository;
+  private final boolean enabled;
+  private final Timer rebuildTimer;
+
+  private volatile Map<ResourceDayKey, List<OccupancyBitmap>> bitmaps = new ConcurrentHashMap<>();
+  private volatile Map<Long, ScheduleSlotSnapshot> slotsById = new ConcurrentHashMap<>();
+  private volatile boolean ready = false;
+
+  public OccupancyBitmapCache(
+      ScheduleSlotRepository scheduleSlotRepository,
+      MeterRegistry meterRegistry,
+      @Value("${schedule.occupancy-cache.enabled:false}") boolean enabled) {
+    this.scheduleSlotRepository = scheduleSlotRepository;
+    this.enabled = enabled;
+    this.rebuildTimer =
+        Timer.builder("schedule.occupancy.rebuild")
+            .description("Czas pełnej przebudowy map zajętości")
+            .register(meterRegistry);
+    Gauge.builder("schedule.occupancy.memory", this, OccupancyBitmapCache::memoryBytes)
+        .description("Przybliżony rozmiar map zajętości")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    if (!enabled) return;
+
+    long start = System.nanoTime();
+    List<ScheduleSlotSnapshot> slots =
+        scheduleSlotRepository.findAllWithStudents().stream()
+            .map(ScheduleSlotSnapshot::of)
+            .toList();
+
+    Map<ResourceDayKey, List<ScheduleSlotSnapshot>> grouped =
+        slots.stream()
+            .flatMap(slot -> ResourceDayKey.keysOf(slot).stream().map(key -> Map.entry(key, slot)))
+            .collect(
+                Collectors.groupingBy(
+                    Map.Entry::getKey,
+                    Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+
+    Map<ResourceDayKey, List<OccupancyBitmap>> built =
+        grouped.entrySet().parallelStream()
+            .collect(
+                Collectors.toConcurrentMap(
+                    Map.Entry::getKey, e -> OccupancyBitmap.build(e.getValue())));
+
+    bitmaps = built;
+    slotsById =
+        slots.stream()
+            .collect(
+                Collectors.toConcurrentMap(ScheduleSlotSnapshot::id, s -> s, (a, b) -> a));
+    ready = true;
+
+    Duration took = Duration.ofNanos(System.nanoTime() - start);
+    rebuildTimer.record(took);
+    log.info(
+        "Zbudowano mapy zajętości: {} map, {} KB w {} ms",
+        built.values().stream().mapToInt(List::size).sum(),
+        memoryBytes() / 1024,
+        took.toMillis());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onSlotChanged(ScheduleSlotChangedEvent event) {
+    if (!enabled) return;
+    ScheduleSlotSnapshot previous = replace(event.slotId(), event.after());
+    IndexTransactions.undoOnRollback(this, () -> replace(event.slotId(), previous));
+  }
+
+  // Podmienia wersję slotu w mapach (null = brak) i zwraca poprzednią
+  private synchronized ScheduleSlotSnapshot replace(Long slotId, ScheduleSlotSnapshot after) {
+    ScheduleSlotSnapshot previous = slotsById.remove(slotId);
+    if (previous != null) {
+      for (ResourceDayKey key : ResourceDayKey.keysOf(previous)) {
+        bitmaps.computeIfPresent(
+            key,
+            (k, list) -> {
+              List<OccupancyBitmap> rest = OccupancyBitmap.without(list, previous.id());
+              return rest.isEmpty() ? null : rest;
+            });
+      }
+    }
+    if (after != null) {
+      slotsById.put(after.id(), after);
+      for (ResourceDayKey key : ResourceDayKey.keysOf(after)) {
+        bitmaps.compute(
+            key, (k, list) -> OccupancyBitmap.with(list == null ? List.of() : list, after));
+      }
+    }
+    return previous;
+  }
+
+  /** Komórki zajęte przez zasób w danym dniu tygodnia przez sloty obowiązujące w dacie. */
+  public Optional<long[]> occupied(
+      ResourceType type, Long resourceId, DayOfWeek day, LocalDate date) {
+    if (!isReady()) return Optional.empty();
+    long[] result = new long[WeekMask.WORDS_PER_DAY];
+    for (OccupancyBitmap bitmap : bitmaps(type, resourceId, day)) {
+      if (bitmap.isValidOn(date)) WeekMask.or(result, bitmap.bits());
+    }
+    return Optional.of(result);
+  }
+
+  /**
+   * Czy kandydat może kolidować z zajęciami zasobu. Komórki są zaokrąglane na zewnątrz, więc
+   * false oznacza brak kolizji na pewno, a true wymaga dokładnego sprawdzenia godzin.
+   */
+  public boolean mayOverlap(ResourceType type, Long resourceId, ScheduleSlotSnapshot candidate) {
+    if (!isReady()) return true;
+    long[] bits = WeekMask.dayBits(candidate.startTime(), candidate.endTime());
+    for (OccupancyBitmap bitmap : bitmaps(type, resourceId, candidate.dayOfWeek())) {
+      if (bitmap.overlapsValidity(candidate) && WeekMask.intersects(bitmap.bits(), bits)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public long memoryBytes() {
+    return bitmaps.values().stream().mapToLong(list -> list.size() * OccupancyBitmap.BYTES).sum();
+  }
+
+  private List<OccupancyBitmap> bitmaps(ResourceType type, Long resourceId, DayOfWeek day) {
+    if (resourceId == null) return List.of();
+    return bitmaps.getOrDefault(new ResourceDayKey(type, resourceId, day), List.of());
+  }
+}
@@ -0,0 +1,272 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.model.Department;
+import com.MSPDiON.SchoolSchedule.model.Room;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.model.StudentClass;
+import com.MSPDiON.SchoolSchedule.model.Therapist;
+import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentClassRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ograniczony (LRU) cache danych słownikowych: sal, terapeutów, klas i nazw uczniów. Zmieniają się
+ * kilka razy dziennie, a eksport czyta je tysiące razy. Serwisy zapisują zmiany do cache (create,
+ * update), usuwają wpisy przy delete i czyszczą cały typ po imporcie CSV. Każda taka zmiana podbija
+ * wersję danych słownikowych w ScheduleVersions, bo nazwy trafiają do ETagowanych planów.
+ *
+ * <p>Cache trzyma niemutowalne rekordy (id i nazwy), nie encje JPA, więc wpisy można bezpiecznie
+ * współdzielić między wątkami. Nowy slot dostaje świeżą, niezarządzaną encję-referencję z
+ * rekordu ({@code toEntity}), osobną przy każdym wywołaniu.
+ *
+ * <p>Zapisy z serwisów wygrywają z równoległym wczytaniem: wartość wczytana z bazy trafia do
+ * cache tylko wtedy, gdy w trakcie wczytywania nic nie zapisano ani nie usunięto.
+ */
+@Component
+public class ReferenceDataCache {
+
+  private final RoomRepository roomRepository;
+  private final TherapistRepository therapistRepository;
+  private final StudentClassRepository studentClassRepository;
+  private final StudentRepository studentRepository;
+  private final ScheduleVersions versions;
+
+  private final Lru<RoomRef> rooms;
+  private final Lru<TherapistRef> therapists;
+  private final Lru<StudentClassRef> classes;
+  private final Lru<String> studentNames;
+
+  public ReferenceDataCache(
+      RoomRepository roomRepository,
+      TherapistRepository therapistRepository,
+      StudentClassRepository studentClassRepository,
+      StudentRepository studentRepository,
+      ScheduleVersions versions,
+      MeterRegistry meterRegistry,
+      @Value("${schedule.reference-cache.max-size:1000}") int maxSize) {
+    this.roomRepository = roomRepository;
+    this.therapistRepository = therapistRepository;
+    this.studentClassRepository = studentClassRepository;
+    this.studentRepository = studentRepository;
+    this.versions = versions;
+    this.rooms = new Lru<>("room", maxSize, meterRegistry);
+    this.therapists = new Lru<>("therapist", maxSize, meterRegistry);
+    this.classes = new Lru<>("class", maxSize, meterRegistry);
+    this.studentNames = new Lru<>("student-name", maxSize, meterRegistry);
+  }
+
+  public Optional<RoomRef> room(Long id) {
+    return rooms.get(id, i -> roomRepository.findById(i).map(RoomRef::of));
+  }
+
+  public Optional<TherapistRef> therapist(Long id) {
+    return therapists.get(id, i -> therapistRepository.findById(i).map(TherapistRef::of));
+  }
+
+  public Optional<StudentClassRef> studentClass(Long id) {
+    return classes.get(id, i -> studentClassRepository.findById(i).map(StudentClassRef::of));
+  }
+
+  /** "Imię Nazwisko" ucznia. */
+  public Optional<String> studentName(Long id) {
+    return studentNames.get(id, i -> studentRepository.findById(i).map(ReferenceDataCache::nameOf));
+  }
+
+  public void put(Room room) {
+    rooms.put(room.getId(), RoomRef.of(room));
+    versions.bumpReference();
+  }
+
+  public void put(Therapist therapist) {
+    therapists.put(therapist.getId(), TherapistRef.of(therapist));
+    versions.bumpReference();
+  }
+
+  public void put(StudentClass studentClass) {
+    classes.put(studentClass.getId(), StudentClassRef.of(studentClass));
+    versions.bumpReference();
+  }
+
+  public void put(Student student) {
+    studentNames.put(student.getId(), nameOf(student));
+    versions.bumpReference();
+  }
+
+  public void evictRoom(Long id) {
+    rooms.evict(id);
+    versions.bumpReference();
+  }
+
+  public void evictTherapist(Long id) {
+    therapists.evict(id);
+    versions.bumpReference();
+  }
+
+  public void evictStudentClass(Long id) {
+    classes.evict(id);
+    versions.bumpReference();
+  }
+
+  public void evictStudent(Long id) {
+    studentNames.evict(id);
+    versions.bumpReference();
+  }
+
+  public void clearTherapists() {
+    therapists.clear();
+    versions.bumpReference();
+  }
+
+  public void clearStudentClasses() {
+    classes.clear();
+    versions.bumpReference();
+  }
+
+  public void clearStudents() {
+    studentNames.clear();
+    versions.bumpReference();
+  }
+
+  private static String nameOf(Student student) {
+    return student.getFirstName() + " " + student.getLastName();
+  }
+
+  public record RoomRef(Long id, String name) {
+
+    static RoomRef of(Room room) {
+      return new RoomRef(room.getId(), room.getName());
+    }
+
+    /** Niezarządzana encja z samym id i nazwą, do ustawienia jako sala slotu. */
+    public Room toEntity() {
+      return Room.builder().id(id).name(name).build();
+    }
+  }
+
+  public record TherapistRef(Long id, String firstName, String lastName) {
+
+    static TherapistRef of(Therapist therapist) {
+      return new TherapistRef(therapist.getId(), therapist.getFirstName(), therapist.getLastName());
+    }
+
+    public String fullName() {
+      return firstName + " " + lastName;
+    }
+
+    /** Niezarządzana encja z samym id i imieniem/nazwiskiem, do ustawienia jako terapeuta slotu. */
+    public Therapist toEntity() {
+      return Therapist.builder().id(id).firstName(firstName).lastName(lastName).build();
+    }
+  }
+
+  public record StudentClassRef(Long id, String name, Department department) {
+
+    static StudentClassRef of(StudentClass studentClass) {
+      return new StudentClassRef(
+          studentClass.getId(), studentClass.getName(), studentClass.getDepartment());
+    }
+
+    /** Niezarządzana encja bez listy uczniów, do ustawienia jako klasa slotu. */
+    public StudentClass toEntity() {
+      return StudentClass.builder().id(id).name(name).department(department).build();
+    }
+  }
+
+  /**
+   * Mapa LRU z licznikami trafień; brakujące id nie są zapamiętywane. Licznik zapisów pozwala
+   * odrzucić wartość wczytaną z bazy, jeśli w trakcie wczytywania wpis zmieniono lub usunięto.
+   */
+  private static final class Lru<V> {
+
+    private final Map<Long, V> entries;
+    private final AtomicLong writes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    Lru(String name, int maxSize, MeterRegistry meterRegistry) {
+      this.entries =
+          Collections.synchronizedMap(
+              new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                  return size() > maxSize;
+                }
+              });
+      this.hits =
+          Counter.builder("schedule.reference-cache.requests")
+              .tag("cache", name)
+              .tag("result", "hit")
+              .register(meterRegistry);
+      this.misses =
+          Counter.builder("schedule.reference-cache.requests")
+              .tag("cache", name)
+              .tag("result", "miss")
+              .register(meterRegistry);
+      Gauge.builder("schedule.reference-cache.hit-ratio", this, Lru::hitRatio)
+          .tag("cache", name)
+          .register(meterRegistry);
+      Gauge.builder("schedule.reference-cache.size", entries, Map::size)
+          .tag("cache", name)
+          .register(meterRegistry);
+    }
+
+    Optional<V> get(Long id, Function<Long, Optional<V>> loader) {
+      if (id == null) return Optional.empty();
+
+      V cached = entries.get(id);
+      if (cached != null) {
+        hits.increment();
+        return Optional.of(cached);
+      }
+      misses.increment();
+      long seen = writes.get();
+      Optional<V> loaded = loader.apply(id);
+      loaded.ifPresent(
+          v -> {
+            synchronized (entries) {
+              if (writes.get() == seen) entries.putIfAbsent(id, v);
+            }
+          });
+      return loaded;
+    }
+
+    void put(Long id, V value) {
+      if (id == null) return;
+      synchronized (entries) {
+        writes.incrementAndGet();
+        entries.put(id, value);
+      }
+    }
+
+    void evict(Long id) {
+      synchronized (entries) {
+        writes.incrementAndGet();
+        entries.remove(id);
+      }
+    }
+
+    void clear() {
+      synchronized (entries) {
+        writes.incrementAndGet();
+        entries.clear();
+      }
+    }
+
+    double hitRatio() {
+      double total = hits.count() + misses.count();
+      return total == 0 ? 0 : hits.count() / total;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Klucz kubełka w indeksach slotów: zasób (terapeuta, sala, uczeń, klasa) i dzień tygodnia. */
+record ResourceDayKey(ResourceType type, Long resourceId, DayOfWeek dayOfWeek) {
+
+  /** Klucze wszystkich zasobów slotu w jego dniu tygodnia. */
+  static List<ResourceDayKey> keysOf(ScheduleSlotSnapshot slot) {
+    List<ResourceDayKey> keys = new ArrayList<>();
+    for (ResourceType type : ResourceType.values()) {
+      for (Long id : slot.resourceIds(type)) {
+        keys.add(new ResourceDayKey(type, id, slot.dayOfWeek()));
+      }
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,138 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import java.time.DayOfWeek;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Indeks slotów w pamięci: dla każdego terapeuty, sali, ucznia i klasy oraz dnia tygodnia trzyma
+ * posortowane przedziały czasu. Budowany przy starcie aplikacji i aktualizowany przy każdej
+ * zmianie slotu (ScheduleSlotChangedEvent), dzięki czemu walidacja konfliktów nie odpytuje bazy.
+ * Zmiany są nanoszone przed commitem, pod blokadami zasobów, i cofane przy wycofaniu transakcji
+ * (IndexTransactions). Indeks widzi tylko zmiany z tej instancji aplikacji, dlatego domyślnie
+ * jest wyłączony ({@code schedule.conflict-index.enabled}) i walidacja czyta bazę; włączać tylko
+ * przy jednej instancji.
+ */
+@Slf4j
+@Component
+public class ScheduleConflictIndex {
+
+  private final ScheduleSlotRepository scheduleSlotRepository;
+  private final boolean enabled;
+
+  private volatile Map<ResourceDayKey, IntervalBucket> buckets = new ConcurrentHashMap<>();
+  private volatile Map<Long, ScheduleSlotSnapshot> slotsById = new ConcurrentHashMap<>();
+  private volatile boolean ready = false;
+
+  public ScheduleConflictIndex(
+      ScheduleSlotRepository scheduleSlotRepository,
+      @Value("${schedule.conflict-index.enabled:false}") boolean enabled) {
+    this.scheduleSlotRepository = scheduleSlotRepository;
+    this.enabled = enabled;
+  }
+
+  /** Czy indeks jest zbudowany i może zastąpić zapytania do bazy. */
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    if (!enabled) return;
+
+    long start = System.nanoTime();
+    Map<ResourceDayKey, IntervalBucket> newBuckets = new ConcurrentHashMap<>();
+    Map<Long, ScheduleSlotSnapshot> newSlots = new ConcurrentHashMap<>();
+
+    scheduleSlotRepository.findAllWithStudents().stream()
+        .map(ScheduleSlotSnapshot::of)
+        .forEach(snapshot -> add(snapshot, newBuckets, newSlots));
+
+    buckets = newBuckets;
+    slotsById = newSlots;
+    ready = true;
+    log.info(
+        "Zbudowano indeks konfliktów: {} slotów w {} ms",
+        newSlots.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onSlotChanged(ScheduleSlotChangedEvent event) {
+    if (!enabled) return;
+    ScheduleSlotSnapshot previous = replace(event.slotId(), event.after());
+    IndexTransactions.undoOnRollback(this, () -> replace(event.slotId(), previous));
+  }
+
+  // Podmienia wersję slotu w indeksie (null = brak) i zwraca poprzednią
+  private synchronized ScheduleSlotSnapshot replace(Long slotId, ScheduleSlotSnapshot slot) {
+    ScheduleSlotSnapshot previous = remove(slotId, buckets, slotsById);
+    if (slot != null) {
+      add(slot, buckets, slotsById);
+    }
+    return previous;
+  }
+
+  /** Id slotów zasobu nachodzących na kandydata (dzień, godziny i okres obowiązywania). */
+  public Set<Long> findConflicts(
+      ResourceType type, Long resourceId, ScheduleSlotSnapshot candidate) {
+    Set<Long> result = new LinkedHashSet<>();
+    bucket(type, resourceId, candidate.dayOfWeek())
+        .forEachOverlapping(candidate, s -> result.add(s.id()));
+    return result;
+  }
+
+  /** Id wszystkich slotów zasobu z tego samego dnia tygodnia i okresu obowiązywania. */
+  public Set<Long> findSameDay(ResourceType type, Long resourceId, ScheduleSlotSnapshot candidate) {
+    Set<Long> result = new LinkedHashSet<>();
+    bucket(type, resourceId, candidate.dayOfWeek())
+        .forEachInValidity(candidate, s -> result.add(s.id()));
+    return result;
+  }
+
+  private IntervalBucket bucket(ResourceType type, Long resourceId, DayOfWeek day) {
+    if (resourceId == null) return IntervalBucket.EMPTY;
+    return buckets.getOrDefault(new ResourceDayKey(type, resourceId, day), IntervalBucket.EMPTY);
+  }
+
+  private static void add(
+      ScheduleSlotSnapshot slot,
+      Map<ResourceDayKey, IntervalBucket> buckets,
+      Map<Long, ScheduleSlotSnapshot> slotsById) {
+    slotsById.put(slot.id(), slot);
+    for (ResourceDayKey key : ResourceDayKey.keysOf(slot)) {
+      buckets.compute(
+          key, (k, bucket) -> (bucket == null ? IntervalBucket.EMPTY : bucket).with(slot));
+    }
+  }
+
+  private static ScheduleSlotSnapshot remove(
+      Long slotId,
+      Map<ResourceDayKey, IntervalBucket> buckets,
+      Map<Long, ScheduleSlotSnapshot> slotsById) {
+    ScheduleSlotSnapshot previous = slotsById.remove(slotId);
+    if (previous == null) return null;
+    for (ResourceDayKey key : ResourceDayKey.keysOf(previous)) {
+      buckets.computeIfPresent(
+          key,
+          (k, bucket) -> {
+            IntervalBucket updated = bucket.without(slotId);
+            return updated.isEmpty() ? null : updated;
+          });
+    }
+    return previous;
+  }
+}
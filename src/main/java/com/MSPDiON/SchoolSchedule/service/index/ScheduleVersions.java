@@ -0,0 +1,95 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Liczniki wersji per podmiot (terapeuta, sala, klasa, uczeń) i jeden globalny, podbijane przy
+ * każdej zmianie. Z nich powstają ETagi endpointów odczytu, więc {@code If-None-Match} można
+ * obsłużyć odpowiedzią 304 bez zapytania do bazy. Plany zawierają nazwy sal, terapeutów, klas i
+ * uczniów, dlatego ETag podmiotu zawiera też wersję danych słownikowych, podbijaną przez
+ * ReferenceDataCache przy każdej ich zmianie.
+ *
+ * <p>Liczniki są w pamięci instancji; prefiks epoki (czas startu) sprawia, że ETagi sprzed
+ * restartu nigdy nie pasują.
+ */
+@Component
+public class ScheduleVersions {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicLong global = new AtomicLong();
+  private final AtomicLong reference = new AtomicLong();
+  private final Map<Key, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  public String etag(ResourceType type, Long id) {
+    AtomicLong version = versions.get(new Key(type, id));
+    return epoch
+        + "-"
+        + type.name().toLowerCase(Locale.ROOT)
+        + id
+        + "-"
+        + valueOf(version)
+        + "-r"
+        + reference.get();
+  }
+
+  public String globalEtag() {
+    return epoch + "-" + global.get();
+  }
+
+  public void bump(ResourceType type, Long id) {
+    if (id != null) {
+      versions.computeIfAbsent(new Key(type, id), k -> new AtomicLong()).incrementAndGet();
+    }
+    global.incrementAndGet();
+  }
+
+  /** Wariant dla typów zapisanych jako tekst (Availability.entityType). */
+  public void bump(String entityType, Long id) {
+    try {
+      bump(ResourceType.valueOf(entityType.toUpperCase(Locale.ROOT)), id);
+    } catch (IllegalArgumentException | NullPointerException e) {
+      global.incrementAndGet();
+    }
+  }
+
+  public void bumpGlobal() {
+    global.incrementAndGet();
+  }
+
+  /** Zmiana nazwy sali, terapeuty, klasy lub ucznia - unieważnia ETagi wszystkich planów. */
+  public void bumpReference() {
+    reference.incrementAndGet();
+    global.incrementAndGet();
+  }
+
+  // Po commicie: podbicie przed commitem pozwoliłoby zapamiętać stare dane pod nowym ETagiem.
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onSlotChanged(ScheduleSlotChangedEvent event) {
+    Stream.of(event.before(), event.after())
+        .filter(Objects::nonNull)
+        .forEach(this::bumpParticipants);
+  }
+
+  private void bumpParticipants(ScheduleSlotSnapshot slot) {
+    bump(ResourceType.THERAPIST, slot.therapistId());
+    bump(ResourceType.ROOM, slot.roomId());
+    if (slot.studentClassId() != null) bump(ResourceType.CLASS, slot.studentClassId());
+    slot.studentIds().forEach(id -> bump(ResourceType.STUDENT, id));
+  }
+
+  private static long valueOf(AtomicLong version) {
+    return version == null ? 0 : version.get();
+  }
+
+  private record Key(ResourceType type, Long id) {}
+}
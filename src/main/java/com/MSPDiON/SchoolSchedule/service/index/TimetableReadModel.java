@@ -0,0 +1,151 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Model odczytu: tygodniowy plan każdego terapeuty, sali, ucznia i klasy, z zajęciami
+ * posortowanymi w obrębie dnia. Budowany raz przy starcie i aktualizowany przyrostowo z
+ * ScheduleSlotChangedEvent, więc odczyt planu to jedno wyszukanie w mapie, niezależnie od liczby
+ * uczniów w slocie.
+ */
+@Slf4j
+@Component
+public class TimetableReadModel {
+
+  private static final Comparator<ScheduleSlotSnapshot> BY_TIME =
+      Comparator.comparing(ScheduleSlotSnapshot::startTime)
+          .thenComparing(ScheduleSlotSnapshot::endTime)
+          .thenComparing(ScheduleSlotSnapshot::id);
+
+  private final ScheduleSlotRepository scheduleSlotRepository;
+
+  private final Map<Key, Map<DayOfWeek, List<ScheduleSlotSnapshot>>> timetables =
+      new ConcurrentHashMap<>();
+  private final Map<Long, ScheduleSlotSnapshot> slotsById = new ConcurrentHashMap<>();
+  private volatile boolean ready = false;
+
+  public TimetableReadModel(ScheduleSlotRepository scheduleSlotRepository) {
+    this.scheduleSlotRepository = scheduleSlotRepository;
+  }
+
+  /** Plan podmiotu; niemutowalna mapa dni, puste dni pominięte. */
+  public Map<DayOfWeek, List<ScheduleSlotSnapshot>> timetable(ResourceType type, Long id) {
+    if (!ready) rebuild();
+    return timetables.getOrDefault(new Key(type, id), Map.of());
+  }
+
+  /** Wszystkie sloty w modelu (kopia listy, bez kolejności). */
+  public List<ScheduleSlotSnapshot> allSlots() {
+    if (!ready) rebuild();
+    return List.copyOf(slotsById.values());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    List<ScheduleSlotSnapshot> slots =
+        scheduleSlotRepository.findAllWithStudents().stream()
+            .map(ScheduleSlotSnapshot::of)
+            .toList();
+
+    Map<Key, List<ScheduleSlotSnapshot>> grouped =
+        slots.stream()
+            .flatMap(slot -> keysOf(slot).stream().map(key -> Map.entry(key, slot)))
+            .collect(
+                Collectors.groupingBy(
+                    Map.Entry::getKey,
+                    Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+
+    timetables.clear();
+    grouped.forEach((key, list) -> timetables.put(key, byDay(list)));
+    slotsById.clear();
+    slots.forEach(s -> slotsById.put(s.id(), s));
+    ready = true;
+    log.info("Zbudowano model planów: {} podmiotów, {} slotów", timetables.size(), slots.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onSlotChanged(ScheduleSlotChangedEvent event) {
+    if (!ready) return;
+
+    ScheduleSlotSnapshot previous = slotsById.remove(event.slotId());
+    if (previous != null) {
+      for (Key key : keysOf(previous)) {
+        timetables.computeIfPresent(key, (k, days) -> without(days, previous));
+      }
+    }
+    ScheduleSlotSnapshot after = event.after();
+    if (after != null) {
+      slotsById.put(after.id(), after);
+      for (Key key : keysOf(after)) {
+        timetables.compute(key, (k, days) -> with(days == null ? Map.of() : days, after));
+      }
+    }
+  }
+
+  private static Map<DayOfWeek, List<ScheduleSlotSnapshot>> byDay(
+      List<ScheduleSlotSnapshot> slots) {
+    Map<DayOfWeek, List<ScheduleSlotSnapshot>> days = new EnumMap<>(DayOfWeek.class);
+    for (ScheduleSlotSnapshot slot : slots) {
+      days.computeIfAbsent(slot.dayOfWeek(), d -> new ArrayList<>()).add(slot);
+    }
+    days.replaceAll((day, list) -> sorted(list));
+    return Collections.unmodifiableMap(days);
+  }
+
+  private static Map<DayOfWeek, List<ScheduleSlotSnapshot>> with(
+      Map<DayOfWeek, List<ScheduleSlotSnapshot>> days, ScheduleSlotSnapshot slot) {
+    Map<DayOfWeek, List<ScheduleSlotSnapshot>> copy = new EnumMap<>(DayOfWeek.class);
+    copy.putAll(days);
+    List<ScheduleSlotSnapshot> list = new ArrayList<>();
+    list.addAll(copy.getOrDefault(slot.dayOfWeek(), List.of()));
+    list.add(slot);
+    copy.put(slot.dayOfWeek(), sorted(list));
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private static Map<DayOfWeek, List<ScheduleSlotSnapshot>> without(
+      Map<DayOfWeek, List<ScheduleSlotSnapshot>> days, ScheduleSlotSnapshot slot) {
+    List<ScheduleSlotSnapshot> list = days.get(slot.dayOfWeek());
+    if (list == null) return days;
+
+    Map<DayOfWeek, List<ScheduleSlotSnapshot>> copy = new EnumMap<>(DayOfWeek.class);
+    copy.putAll(days);
+    List<ScheduleSlotSnapshot> rest = list.stream().filter(s -> !s.isSameSlot(slot)).toList();
+    if (rest.isEmpty()) copy.remove(slot.dayOfWeek());
+    else copy.put(slot.dayOfWeek(), rest);
+    return copy.isEmpty() ? null : Collections.unmodifiableMap(copy);
+  }
+
+  private static List<ScheduleSlotSnapshot> sorted(List<ScheduleSlotSnapshot> slots) {
+    return slots.stream().sorted(BY_TIME).toList();
+  }
+
+  private static List<Key> keysOf(ScheduleSlotSnapshot slot) {
+    List<Key> keys = new ArrayList<>();
+    for (ResourceType type : ResourceType.values()) {
+      for (Long id : slot.resourceIds(type)) {
+        keys.add(new Key(type, id));
+      }
+    }
+    return keys;
+  }
+
+  private record Key(ResourceType type, Long id) {}
+}
@@ -0,0 +1,162 @@
+package com.MSPDiON.SchoolSchedule.service.lock;
+
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Blokady zasobów planu (terapeuta, sala, uczeń, klasa) oparte na advisory lockach PostgreSQL,
+ * więc działają między wszystkimi instancjami aplikacji. Blokady są transakcyjne
+ * (pg_advisory_xact_lock) i zwalniane razem z końcem transakcji walidacji i zapisu.
+ *
+ * <p>Kolejność blokad jest stała: najpierw wiersze edytowanych slotów (SELECT ... FOR UPDATE,
+ * rosnąco po id), potem jedna posortowana paczka kluczy zasobów. Blokada wiersza zamraża skład
+ * slotu, więc klucze odczytane pod nią są ostateczne i nie trzeba dobierać ich poza kolejnością.
+ *
+ * <p>Indeksy walidacji (ScheduleConflictIndex, OccupancyBitmapCache) są aktualizowane przed
+ * commitem tylko na węźle, który zapisał zmianę. Następny posiadacz blokady waliduje względem
+ * właśnie zapisanych slotów, o ile indeksy są wyłączone (walidacja z bazy, domyślnie) albo
+ * aplikacja działa w jednej instancji.
+ */
+@Component
+public class ScheduleLockManager {
+
+  // Przestrzeń kluczy aplikacji w pierwszym argumencie pg_advisory_xact_lock(int, int)
+  private static final int KEY_SPACE = 0x5C4E_0000;
+
+  private static final Comparator<LockKey> ORDER =
+      Comparator.comparing(LockKey::type).thenComparing(LockKey::resourceId);
+
+  private static final String LOCK_SLOT_ROW =
+      "SELECT id FROM schedule_slot WHERE id = ? FOR UPDATE";
+
+  private static final String STORED_SLOT_RESOURCES =
+      """
+      SELECT s.therapist_id, s.room_id, s.student_class_id,
+             sss.student_id, st.student_class_id AS student_class
+      FROM schedule_slot s
+      LEFT JOIN schedule_slot_students sss ON sss.schedule_slot_id = s.id
+      LEFT JOIN student st ON st.id = sss.student_id
+      WHERE s.id = ?
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Timer waitTimer;
+
+  public ScheduleLockManager(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.waitTimer =
+        Timer.builder("schedule.lock.wait")
+            .description("Czas oczekiwania na blokady zasobów planu")
+            .register(meterRegistry);
+  }
+
+  public record LockKey(ResourceType type, Long resourceId) {}
+
+  /** Blokuje wszystkie zasoby, których dotyczą podane sloty (np. stan przed i po edycji). */
+  public void lockSlots(ScheduleSlot... slots) {
+    TreeSet<LockKey> keys = new TreeSet<>(ORDER);
+    Arrays.stream(slots).forEach(slot -> collectKeys(slot, keys));
+    lock(keys);
+  }
+
+  /**
+   * Blokuje zapisany slot i jego zasoby odczytane z bazy, razem z zasobami kandydatów. Encję
+   * slotu należy wczytać dopiero po tym wywołaniu.
+   */
+  public void lockStoredSlot(Long slotId, ScheduleSlot... candidates) {
+    lockStoredSlots(List.of(slotId), candidates);
+  }
+
+  /**
+   * Jak {@link #lockStoredSlot}, dla wielu slotów naraz: wszystkie wiersze, potem wszystkie
+   * klucze jedną posortowaną paczką. Kolejne wywołania w tej samej transakcji łamałyby kolejność.
+   */
+  public void lockStoredSlots(Collection<Long> slotIds, ScheduleSlot... candidates) {
+    TreeSet<LockKey> keys = new TreeSet<>(ORDER);
+    Arrays.stream(candidates).forEach(slot -> collectKeys(slot, keys));
+    lockStoredSlots(slotIds, keys);
+  }
+
+  /** Wariant z dodatkowymi kluczami (np. usuwanych uczniów), dołączanymi do tej samej paczki. */
+  public void lockStoredSlots(Collection<Long> slotIds, Collection<LockKey> extraKeys) {
+    requireTransaction();
+    List<Long> sortedIds = new TreeSet<>(slotIds).stream().toList();
+    sortedIds.forEach(id -> jdbcTemplate.query(LOCK_SLOT_ROW, rs -> {}, id));
+
+    TreeSet<LockKey> keys = new TreeSet<>(ORDER);
+    keys.addAll(extraKeys);
+    sortedIds.forEach(id -> keys.addAll(storedKeys(id)));
+    lock(keys);
+  }
+
+  private void lock(Collection<LockKey> sortedKeys) {
+    requireTransaction();
+    waitTimer.record(
+        () ->
+            sortedKeys.forEach(
+                key ->
+                    jdbcTemplate.query(
+                        "SELECT pg_advisory_xact_lock(?, ?)",
+                        rs -> {},
+                        KEY_SPACE + key.type().ordinal(),
+                        Long.hashCode(key.resourceId()))));
+  }
+
+  private static void requireTransaction() {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException("Blokady zasobów planu wymagają aktywnej transakcji");
+    }
+  }
+
+  // Te same klucze co collectKeys, ale dla stanu slotu w bazie
+  private List<LockKey> storedKeys(Long slotId) {
+    List<LockKey> keys = new ArrayList<>();
+    jdbcTemplate.query(
+        STORED_SLOT_RESOURCES,
+        rs -> {
+          keys.add(new LockKey(ResourceType.THERAPIST, rs.getLong("therapist_id")));
+          keys.add(new LockKey(ResourceType.ROOM, rs.getLong("room_id")));
+          addIfPresent(keys, ResourceType.CLASS, rs.getObject("student_class_id", Long.class));
+          addIfPresent(keys, ResourceType.STUDENT, rs.getObject("student_id", Long.class));
+          addIfPresent(keys, ResourceType.CLASS, rs.getObject("student_class", Long.class));
+        },
+        slotId);
+    return keys;
+  }
+
+  private static void addIfPresent(List<LockKey> keys, ResourceType type, Long id) {
+    if (id != null) keys.add(new LockKey(type, id));
+  }
+
+  // Sloty klasowe i indywidualne ucznia serializują się na kluczu klasy ucznia
+  private void collectKeys(ScheduleSlot slot, Collection<LockKey> keys) {
+    if (slot.getTherapist() != null) {
+      keys.add(new LockKey(ResourceType.THERAPIST, slot.getTherapist().getId()));
+    }
+    if (slot.getRoom() != null) {
+      keys.add(new LockKey(ResourceType.ROOM, slot.getRoom().getId()));
+    }
+    if (slot.getStudentClass() != null) {
+      keys.add(new LockKey(ResourceType.CLASS, slot.getStudentClass().getId()));
+    }
+    if (slot.getStudents() == null) return;
+    for (Student student : slot.getStudents()) {
+      keys.add(new LockKey(ResourceType.STUDENT, student.getId()));
+      if (student.getStudentClass() != null) {
+        keys.add(new LockKey(ResourceType.CLASS, student.getStudentClass().getId()));
+      }
+    }
+  }
+}
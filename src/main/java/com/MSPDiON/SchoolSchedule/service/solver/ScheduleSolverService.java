@@ -0,0 +1,222 @@
+package com.MSPDiON.SchoolSchedule.service.solver;
+
+import static com.MSPDiON.SchoolSchedule.service.solver.SolverState.UNASSIGNED;
+
+import com.MSPDiON.SchoolSchedule.dto.BatchCreateResultDto;
+import com.MSPDiON.SchoolSchedule.dto.BatchMode;
+import com.MSPDiON.SchoolSchedule.dto.CreateScheduleSlotDto;
+import com.MSPDiON.SchoolSchedule.dto.SolverRequestDto;
+import com.MSPDiON.SchoolSchedule.dto.SolverResultDto;
+import com.MSPDiON.SchoolSchedule.dto.TherapyDemandDto;
+import com.MSPDiON.SchoolSchedule.dto.UnplacedDemandDto;
+import com.MSPDiON.SchoolSchedule.exception.StudentNotFoundException;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.repository.AvailabilityRepository;
+import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
+import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.ScheduleService;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindowCache;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Automatyczne układanie zajęć terapeutycznych na podstawie zapotrzebowań uczniów. Podgląd nie
+ * zapisuje niczego. Zatwierdzenie przyjmuje sloty zwrócone przez podgląd (przeszukiwanie jest
+ * losowe i ograniczone czasem, więc ponowne uruchomienie dałoby inny plan) i zapisuje je przez
+ * ScheduleService.createScheduleSlots, więc przechodzą tę samą walidację i blokady co ręczne
+ * tworzenie slotów.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScheduleSolverService {
+
+  private static final int MAX_TIME_LIMIT_SECONDS = 120;
+
+  private final StudentRepository studentRepository;
+  private final TherapistRepository therapistRepository;
+  private final RoomRepository roomRepository;
+  private final AvailabilityRepository availabilityRepository;
+  private final ScheduleSlotRepository scheduleSlotRepository;
+  private final ScheduleService scheduleService;
+  private final TimetableSolver solver;
+  private final AvailabilityWindowCache availabilityCache;
+
+  @Value("${schedule.solver.time-limit-seconds:10}")
+  private int defaultTimeLimitSeconds;
+
+  public SolverResultDto preview(SolverRequestDto request) {
+    return solve(request);
+  }
+
+  /** Zapisuje sloty z podglądu w jednej transakcji (ALL_OR_NOTHING). */
+  public BatchCreateResultDto commit(List<CreateScheduleSlotDto> slots) {
+    if (slots == null || slots.isEmpty()) {
+      throw new IllegalArgumentException("Brak slotów do zapisania");
+    }
+    return scheduleService.createScheduleSlots(slots, BatchMode.ALL_OR_NOTHING);
+  }
+
+  private SolverResultDto solve(SolverRequestDto request) {
+    List<TherapyDemandDto> demands = validDemands(request);
+    LocalDate validFrom = parseDate(request.getValidFrom(), "validFrom");
+    LocalDate validTo =
+        request.getValidTo() != null && !request.getValidTo().isBlank()
+            ? parseDate(request.getValidTo(), "validTo")
+            : null;
+
+    List<Student> students = loadStudents(demands);
+    List<ScheduleSlot> existing =
+        scheduleSlotRepository.findAllWithStudents().stream()
+            .filter(slot -> isValidityOverlapping(slot, validFrom, validTo))
+            .toList();
+
+    SolverProblem problem =
+        SolverProblem.build(
+            demands,
+            students,
+            therapistRepository.findAll(),
+            roomRepository.findAll(),
+            availabilityRepository.findByEntityType("THERAPIST"),
+            studentId -> availabilityCache.get(ResourceType.STUDENT, studentId),
+            existing);
+
+    long started = System.currentTimeMillis();
+    TimetableSolver.Solution solution = solver.solve(problem, timeLimit(request));
+
+    return SolverResultDto.builder()
+        .requestedSessions(problem.sessionCount())
+        .placedSessions(
+            (int) Arrays.stream(solution.placement()).filter(p -> p != UNASSIGNED).count())
+        .score(solution.score())
+        .iterations(solution.iterations())
+        .threads(solution.threads())
+        .elapsedMillis(System.currentTimeMillis() - started)
+        .slots(toSlots(problem, solution, validFrom, validTo))
+        .unplaced(toUnplaced(problem, solution))
+        .build();
+  }
+
+  private List<TherapyDemandDto> validDemands(SolverRequestDto request) {
+    if (request.getDemands() == null || request.getDemands().isEmpty()) {
+      throw new IllegalArgumentException("Brak zapotrzebowań do zaplanowania");
+    }
+    for (TherapyDemandDto demand : request.getDemands()) {
+      if (demand.getStudentId() == null || demand.getRole() == null) {
+        throw new IllegalArgumentException("Zapotrzebowanie wymaga ucznia i roli terapeuty");
+      }
+      if (demand.getSessionsPerWeek() <= 0 || demand.getDurationMinutes() <= 0) {
+        throw new IllegalArgumentException(
+            "Liczba zajęć w tygodniu i czas trwania muszą być dodatnie");
+      }
+    }
+    return request.getDemands();
+  }
+
+  private List<Student> loadStudents(List<TherapyDemandDto> demands) {
+    List<Long> ids = demands.stream().map(TherapyDemandDto::getStudentId).distinct().toList();
+    Map<Long, Student> found =
+        studentRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Student::getId, Function.identity()));
+    List<Student> students = new ArrayList<>();
+    for (Long id : ids) {
+      Student student = found.get(id);
+      if (student == null) throw new StudentNotFoundException(id);
+      students.add(student);
+    }
+    return students;
+  }
+
+  private Duration timeLimit(SolverRequestDto request) {
+    int seconds =
+        request.getTimeLimitSeconds() != null
+            ? request.getTimeLimitSeconds()
+            : defaultTimeLimitSeconds;
+    return Duration.ofSeconds(Math.max(1, Math.min(seconds, MAX_TIME_LIMIT_SECONDS)));
+  }
+
+  private List<CreateScheduleSlotDto> toSlots(
+      SolverProblem problem,
+      TimetableSolver.Solution solution,
+      LocalDate validFrom,
+      LocalDate validTo) {
+    List<CreateScheduleSlotDto> slots = new ArrayList<>();
+    for (int s = 0; s < problem.sessionCount(); s++) {
+      int pl = solution.placement()[s];
+      if (pl == UNASSIGNED) continue;
+
+      TherapyDemandDto demand = problem.demands.get(problem.demandOf(s));
+      int start = problem.placementStart[pl];
+
+      CreateScheduleSlotDto dto = new CreateScheduleSlotDto();
+      dto.setTitle(demand.getTitle() != null ? demand.getTitle() : demand.getRole().name());
+      dto.setTherapistId(problem.therapists.get(problem.placementTherapist[pl]).getId());
+      dto.setRoomId(problem.rooms.get(solution.room()[s]).getId());
+      dto.setStudentIds(List.of(demand.getStudentId()));
+      dto.setDayOfWeek(problem.placementDay[pl] + 1);
+      dto.setStartTime(SolverProblem.toTime(start).toString());
+      dto.setEndTime(SolverProblem.toTime(start + problem.sessionLength[s]).toString());
+      dto.setValidFrom(validFrom.toString());
+      dto.setValidTo(validTo != null ? validTo.toString() : null);
+      slots.add(dto);
+    }
+    return slots;
+  }
+
+  private List<UnplacedDemandDto> toUnplaced(
+      SolverProblem problem, TimetableSolver.Solution solution) {
+    int[] missing = new int[problem.demands.size()];
+    for (int s = 0; s < problem.sessionCount(); s++) {
+      if (solution.placement()[s] == UNASSIGNED) missing[problem.demandOf(s)]++;
+    }
+
+    List<UnplacedDemandDto> unplaced = new ArrayList<>();
+    for (int d = 0; d < missing.length; d++) {
+      if (missing[d] == 0) continue;
+      TherapyDemandDto demand = problem.demands.get(d);
+      unplaced.add(
+          UnplacedDemandDto.builder()
+              .studentId(demand.getStudentId())
+              .role(demand.getRole())
+              .missingSessions(missing[d])
+              .reason(
+                  problem.demandDomain[d].length == 0 || problem.rooms.isEmpty()
+                      ? "Brak terapeuty o tej roli dostępnego w godzinach obecności ucznia"
+                      : "Nie znaleziono terminu bez konfliktów")
+              .build());
+    }
+    return unplaced;
+  }
+
+  private static LocalDate parseDate(String value, String field) {
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("Pole " + field + " jest wymagane");
+    }
+    try {
+      return LocalDate.parse(value);
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Niepoprawny format daty w polu " + field);
+    }
+  }
+
+  private static boolean isValidityOverlapping(
+      ScheduleSlot slot, LocalDate validFrom, LocalDate validTo) {
+    LocalDate slotTo = slot.getValidTo() != null ? slot.getValidTo() : LocalDate.MAX;
+    LocalDate to = validTo != null ? validTo : LocalDate.MAX;
+    LocalDate slotFrom = slot.getValidFrom() != null ? slot.getValidFrom() : LocalDate.MIN;
+    return !slotFrom.isAfter(to) && !validFrom.isAfter(slotTo);
+  }
+}
@@ -0,0 +1,277 @@
+package com.MSPDiON.SchoolSchedule.service.solver;
+
+import com.MSPDiON.SchoolSchedule.dto.TherapyDemandDto;
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.model.Room;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.model.Therapist;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindows;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Niezmienny model problemu dla solvera: siatka tygodnia w komórkach 5-minutowych, możliwe
+ * umiejscowienia (terapeuta, dzień, godzina) oraz zajętość wynikająca z istniejącego planu.
+ * Dziedziny zapotrzebowań są zawężane już przy budowie (rola terapeuty, jego dostępność, obecność
+ * ucznia, istniejące zajęcia), więc przeszukiwanie nie rozważa wartości z góry niedopuszczalnych.
+ * Współdzielony przez wszystkie wątki przeszukiwania.
+ */
+final class SolverProblem {
+
+  static final int CELL_MINUTES = 5;
+  static final int DAY_CELLS = 24 * 60 / CELL_MINUTES;
+  static final int WEEK_CELLS = 7 * DAY_CELLS;
+
+  // Zgodnie z ScheduleService: maks. 3 zajęcia poza zajęciami klasowymi dziennie
+  static final int MAX_DAILY_SESSIONS = 3;
+
+  // Godziny rozpoczęcia co 15 minut
+  private static final int START_STEP = 3;
+
+  final List<TherapyDemandDto> demands;
+  final List<Student> students;
+  final List<Therapist> therapists;
+  final List<Room> rooms;
+
+  final int[] placementTherapist;
+  final int[] placementDay;
+  final int[] placementStart;
+
+  final int[][] demandDomain;
+  final int[] demandStudent;
+
+  final int[] sessionDemand;
+  final int[] sessionStudent;
+  final int[] sessionLength;
+
+  final short[] fixedTherapist;
+  final short[] fixedRoom;
+  final short[] fixedStudent;
+  final byte[] fixedStudentDaily;
+
+  private SolverProblem(
+      List<TherapyDemandDto> demands,
+      List<Student> students,
+      List<Therapist> therapists,
+      List<Room> rooms,
+      List<int[]> placements,
+      int[][] demandDomain,
+      int[] demandStudent,
+      Occupancy fixed) {
+    this.demands = demands;
+    this.students = students;
+    this.therapists = therapists;
+    this.rooms = rooms;
+
+    this.placementTherapist = placements.stream().mapToInt(p -> p[0]).toArray();
+    this.placementDay = placements.stream().mapToInt(p -> p[1]).toArray();
+    this.placementStart = placements.stream().mapToInt(p -> p[2]).toArray();
+    this.demandDomain = demandDomain;
+    this.demandStudent = demandStudent;
+
+    List<Integer> sessions = new ArrayList<>();
+    for (int d = 0; d < demands.size(); d++) {
+      for (int k = 0; k < demands.get(d).getSessionsPerWeek(); k++) sessions.add(d);
+    }
+    this.sessionDemand = sessions.stream().mapToInt(Integer::intValue).toArray();
+    this.sessionStudent = new int[sessionDemand.length];
+    this.sessionLength = new int[sessionDemand.length];
+    for (int s = 0; s < sessionDemand.length; s++) {
+      sessionStudent[s] = demandStudent[sessionDemand[s]];
+      sessionLength[s] = lengthCells(demands.get(sessionDemand[s]));
+    }
+
+    this.fixedTherapist = fixed.therapist;
+    this.fixedRoom = fixed.room;
+    this.fixedStudent = fixed.student;
+    this.fixedStudentDaily = fixed.studentDaily;
+  }
+
+  int sessionCount() {
+    return sessionDemand.length;
+  }
+
+  int demandOf(int session) {
+    return sessionDemand[session];
+  }
+
+  /**
+   * @param therapistAvailability okna dostępności terapeutów; terapeuta bez żadnego okna jest
+   *     dostępny przez cały tydzień, tak jak w AvailabilityWindowRule i FreeWindowService
+   * @param studentAvailability okna dostępności ucznia (NONE = bez ograniczeń)
+   * @param existing istniejące sloty, których okres obowiązywania nachodzi na planowany
+   */
+  static SolverProblem build(
+      List<TherapyDemandDto> demands,
+      List<Student> students,
+      List<Therapist> therapists,
+      List<Room> rooms,
+      List<Availability> therapistAvailability,
+      Function<Long, AvailabilityWindows> studentAvailability,
+      List<ScheduleSlot> existing) {
+    Map<Long, Integer> studentIdx = indexOf(students.stream().map(Student::getId).toList());
+    Map<Long, Integer> therapistIdx = indexOf(therapists.stream().map(Therapist::getId).toList());
+    Map<Long, Integer> roomIdx = indexOf(rooms.stream().map(Room::getId).toList());
+
+    Occupancy fixed = Occupancy.of(existing, students, studentIdx, therapistIdx, roomIdx);
+
+    // Umiejscowienia: {terapeuta, dzień, początek, koniec okna dostępności}
+    List<int[]> placements = new ArrayList<>();
+    Set<Long> restricted = new HashSet<>();
+    for (Availability a : therapistAvailability) {
+      restricted.add(a.getEntityId());
+      Integer t = therapistIdx.get(a.getEntityId());
+      if (t == null || a.getDayOfWeek() < 1 || a.getDayOfWeek() > 7) continue;
+      addPlacements(
+          placements,
+          t,
+          a.getDayOfWeek() - 1,
+          roundUp(toCell(a.getStartTime())),
+          toCell(a.getEndTime()));
+    }
+    for (int t = 0; t < therapists.size(); t++) {
+      if (restricted.contains(therapists.get(t).getId())) continue;
+      for (int day = 0; day < 7; day++) addPlacements(placements, t, day, 0, DAY_CELLS);
+    }
+
+    int[][] domains = new int[demands.size()][];
+    int[] demandStudent = new int[demands.size()];
+    for (int d = 0; d < demands.size(); d++) {
+      TherapyDemandDto demand = demands.get(d);
+      int s = studentIdx.get(demand.getStudentId());
+      Student student = students.get(s);
+      int length = lengthCells(demand);
+      int arrival = student.getArrivalTime() != null ? toCell(student.getArrivalTime()) : 0;
+      int departure =
+          student.getDepartureTime() != null ? toCell(student.getDepartureTime()) : DAY_CELLS;
+      AvailabilityWindows windows = studentAvailability.apply(student.getId());
+
+      List<Integer> domain = new ArrayList<>();
+      for (int p = 0; p < placements.size(); p++) {
+        int[] pl = placements.get(p);
+        int start = pl[2];
+        int end = start + length;
+        if (therapists.get(pl[0]).getRole() != demand.getRole()) continue;
+        if (end > pl[3] || start < arrival || end > departure) continue;
+        if (fixed.studentDaily[s * 7 + pl[1]] >= MAX_DAILY_SESSIONS) continue;
+        if (!windows.covers(DayOfWeek.of(pl[1] + 1), toTime(start), toTime(end))) continue;
+        int from = pl[1] * DAY_CELLS + start;
+        if (fixed.busy(fixed.therapist, pl[0], from, from + length)) continue;
+        if (fixed.busy(fixed.student, s, from, from + length)) continue;
+        domain.add(p);
+      }
+      domains[d] = domain.stream().mapToInt(Integer::intValue).toArray();
+      demandStudent[d] = s;
+    }
+
+    return new SolverProblem(
+        demands, students, therapists, rooms, placements, domains, demandStudent, fixed);
+  }
+
+  private static void addPlacements(
+      List<int[]> placements, int therapist, int day, int from, int to) {
+    for (int start = from; start < to; start += START_STEP) {
+      placements.add(new int[] {therapist, day, start, to});
+    }
+  }
+
+  static int toCell(LocalTime time) {
+    return (time.getHour() * 60 + time.getMinute()) / CELL_MINUTES;
+  }
+
+  static int toCellCeil(LocalTime time) {
+    return (time.getHour() * 60 + time.getMinute() + CELL_MINUTES - 1) / CELL_MINUTES;
+  }
+
+  static LocalTime toTime(int cell) {
+    return LocalTime.MIDNIGHT.plusMinutes((long) cell * CELL_MINUTES);
+  }
+
+  private static int lengthCells(TherapyDemandDto demand) {
+    return (demand.getDurationMinutes() + CELL_MINUTES - 1) / CELL_MINUTES;
+  }
+
+  private static int roundUp(int cell) {
+    return (cell + START_STEP - 1) / START_STEP * START_STEP;
+  }
+
+  private static Map<Long, Integer> indexOf(List<Long> ids) {
+    Map<Long, Integer> index = new HashMap<>();
+    for (int i = 0; i < ids.size(); i++) index.put(ids.get(i), i);
+    return index;
+  }
+
+  /** Zajętość zasobów wynikająca z istniejącego planu (liczniki na komórkę). */
+  private record Occupancy(short[] therapist, short[] room, short[] student, byte[] studentDaily) {
+
+    static Occupancy of(
+        List<ScheduleSlot> existing,
+        List<Student> students,
+        Map<Long, Integer> studentIdx,
+        Map<Long, Integer> therapistIdx,
+        Map<Long, Integer> roomIdx) {
+      Occupancy occ =
+          new Occupancy(
+              new short[therapistIdx.size() * WEEK_CELLS],
+              new short[roomIdx.size() * WEEK_CELLS],
+              new short[studentIdx.size() * WEEK_CELLS],
+              new byte[studentIdx.size() * 7]);
+
+      for (ScheduleSlot slot : existing) {
+        int day = slot.getDayOfWeek().getValue() - 1;
+        int from = day * DAY_CELLS + toCell(slot.getStartTime());
+        int to = day * DAY_CELLS + toCellCeil(slot.getEndTime());
+
+        if (slot.getTherapist() != null) {
+          Integer t = therapistIdx.get(slot.getTherapist().getId());
+          if (t != null) occ.mark(occ.therapist, t, from, to);
+        }
+        if (slot.getRoom() != null) {
+          Integer r = roomIdx.get(slot.getRoom().getId());
+          if (r != null) occ.mark(occ.room, r, from, to);
+        }
+
+        for (Long studentId : participants(slot, students)) {
+          Integer s = studentIdx.get(studentId);
+          if (s == null) continue;
+          occ.mark(occ.student, s, from, to);
+          if (slot.getStudentClass() == null) occ.studentDaily[s * 7 + day]++;
+        }
+      }
+      return occ;
+    }
+
+    // Uczestnicy slotu klasowego to wszyscy uczniowie tej klasy
+    private static Set<Long> participants(ScheduleSlot slot, List<Student> students) {
+      Set<Long> result = new HashSet<>();
+      slot.getStudents().forEach(s -> result.add(s.getId()));
+      if (slot.getStudentClass() != null) {
+        Long classId = slot.getStudentClass().getId();
+        students.stream()
+            .filter(s -> s.getStudentClass() != null)
+            .filter(s -> classId.equals(s.getStudentClass().getId()))
+            .forEach(s -> result.add(s.getId()));
+      }
+      return result;
+    }
+
+    private void mark(short[] cells, int resource, int from, int to) {
+      for (int c = from; c < to; c++) cells[resource * WEEK_CELLS + c]++;
+    }
+
+    boolean busy(short[] cells, int resource, int from, int to) {
+      for (int c = from; c < to; c++) {
+        if (cells[resource * WEEK_CELLS + c] > 0) return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.MSPDiON.SchoolSchedule.service.solver;
+
+import static com.MSPDiON.SchoolSchedule.service.solver.SolverProblem.DAY_CELLS;
+import static com.MSPDiON.SchoolSchedule.service.solver.SolverProblem.MAX_DAILY_SESSIONS;
+import static com.MSPDiON.SchoolSchedule.service.solver.SolverProblem.WEEK_CELLS;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Bieżące przypisanie sesji wraz z licznikami zajętości. Wynik jest utrzymywany przyrostowo:
+ * przypisanie i zdjęcie sesji kosztują tyle, ile komórek zajmuje sesja, niezależnie od wielkości
+ * planu. Instancja należy do jednego wątku.
+ */
+final class SolverState {
+
+  // Wagi: nakładanie się jest zawsze droższe niż pozostawienie sesji niezaplanowanej
+  private static final long OVERLAP_WEIGHT = 1_000;
+  private static final long DAILY_LIMIT_WEIGHT = 10_000;
+  private static final long UNASSIGNED_WEIGHT = 500;
+  private static final long SAME_DAY_WEIGHT = 10;
+
+  static final int UNASSIGNED = -1;
+
+  private final SolverProblem problem;
+
+  final int[] placement;
+  final int[] room;
+
+  private final short[] therapistOcc;
+  private final short[] roomOcc;
+  private final short[] studentOcc;
+  private final byte[] studentDaily;
+  private final byte[] demandDaily;
+
+  private long overlapCells;
+  private long dailyExcess;
+  private long sameDay;
+  private int unassigned;
+
+  SolverState(SolverProblem problem) {
+    this.problem = problem;
+    this.placement = new int[problem.sessionCount()];
+    this.room = new int[problem.sessionCount()];
+    Arrays.fill(placement, UNASSIGNED);
+    Arrays.fill(room, UNASSIGNED);
+
+    this.therapistOcc = problem.fixedTherapist.clone();
+    this.roomOcc = problem.fixedRoom.clone();
+    this.studentOcc = problem.fixedStudent.clone();
+    this.studentDaily = problem.fixedStudentDaily.clone();
+    this.demandDaily = new byte[problem.demands.size() * 7];
+    this.unassigned = problem.sessionCount();
+  }
+
+  /** Odtwarza stan z zapisanego przypisania (np. najlepszego znalezionego). */
+  SolverState(SolverProblem problem, int[] placement, int[] room) {
+    this(problem);
+    for (int s = 0; s < placement.length; s++) {
+      if (placement[s] != UNASSIGNED) assign(s, placement[s], room[s]);
+    }
+  }
+
+  long score() {
+    return OVERLAP_WEIGHT * overlapCells
+        + DAILY_LIMIT_WEIGHT * dailyExcess
+        + UNASSIGNED_WEIGHT * unassigned
+        + SAME_DAY_WEIGHT * sameDay;
+  }
+
+  boolean isFeasible() {
+    return overlapCells == 0 && dailyExcess == 0;
+  }
+
+  void assign(int session, int placementIdx, int roomIdx) {
+    apply(session, placementIdx, roomIdx, 1);
+    placement[session] = placementIdx;
+    room[session] = roomIdx;
+    unassigned--;
+  }
+
+  void unassign(int session) {
+    apply(session, placement[session], room[session], -1);
+    placement[session] = UNASSIGNED;
+    room[session] = UNASSIGNED;
+    unassigned++;
+  }
+
+  /** Pierwsza wolna sala (od losowego miejsca), a gdy żadna nie jest wolna - losowa. */
+  int pickRoom(int session, int placementIdx, SplittableRandom random) {
+    int rooms = problem.rooms.size();
+    int from = cellFrom(placementIdx);
+    int to = from + problem.sessionLength[session];
+    int offset = random.nextInt(rooms);
+    for (int i = 0; i < rooms; i++) {
+      int r = (offset + i) % rooms;
+      if (isFree(roomOcc, r, from, to)) return r;
+    }
+    return offset;
+  }
+
+  /** Czy przypisana sesja uczestniczy w jakimkolwiek konflikcie. */
+  boolean hasConflict(int session) {
+    int pl = placement[session];
+    if (pl == UNASSIGNED) return false;
+    int from = cellFrom(pl);
+    int to = from + problem.sessionLength[session];
+    int student = problem.sessionStudent[session];
+    return studentDaily[student * 7 + problem.placementDay[pl]] > MAX_DAILY_SESSIONS
+        || isShared(therapistOcc, problem.placementTherapist[pl], from, to)
+        || isShared(roomOcc, room[session], from, to)
+        || isShared(studentOcc, student, from, to);
+  }
+
+  private void apply(int session, int placementIdx, int roomIdx, int sign) {
+    int from = cellFrom(placementIdx);
+    int to = from + problem.sessionLength[session];
+    int day = problem.placementDay[placementIdx];
+    int student = problem.sessionStudent[session];
+
+    overlapCells += occupy(therapistOcc, problem.placementTherapist[placementIdx], from, to, sign);
+    overlapCells += occupy(roomOcc, roomIdx, from, to, sign);
+    overlapCells += occupy(studentOcc, student, from, to, sign);
+    dailyExcess += count(studentDaily, student * 7 + day, MAX_DAILY_SESSIONS, sign);
+    sameDay += count(demandDaily, problem.demandOf(session) * 7 + day, 1, sign);
+  }
+
+  private int cellFrom(int placementIdx) {
+    return problem.placementDay[placementIdx] * DAY_CELLS + problem.placementStart[placementIdx];
+  }
+
+  // Zwraca zmianę liczby komórek zajętych przez więcej niż jedną sesję
+  private static int occupy(short[] cells, int resource, int from, int to, int sign) {
+    int base = resource * WEEK_CELLS;
+    int delta = 0;
+    for (int c = base + from; c < base + to; c++) {
+      if (sign > 0) {
+        if (cells[c]++ >= 1) delta++;
+      } else if (--cells[c] >= 1) {
+        delta--;
+      }
+    }
+    return delta;
+  }
+
+  // Zwraca zmianę liczby przekroczeń limitu
+  private static int count(byte[] counters, int index, int limit, int sign) {
+    if (sign > 0) return ++counters[index] > limit ? 1 : 0;
+    return counters[index]-- > limit ? -1 : 0;
+  }
+
+  private static boolean isFree(short[] cells, int resource, int from, int to) {
+    int base = resource * WEEK_CELLS;
+    for (int c = base + from; c < base + to; c++) {
+      if (cells[c] > 0) return false;
+    }
+    return true;
+  }
+
+  private static boolean isShared(short[] cells, int resource, int from, int to) {
+    int base = resource * WEEK_CELLS;
+    for (int c = base + from; c < base + to; c++) {
+      if (cells[c] > 1) return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,204 @@
+package com.MSPDiON.SchoolSchedule.service.solver;
+
+import static com.MSPDiON.SchoolSchedule.service.solver.SolverState.UNASSIGNED;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Solver planu: konstrukcja zachłanna (najpierw sesje o najmniejszej dziedzinie) i następnie
+ * przeszukiwanie lokalne Late Acceptance Hill Climbing, uruchamiane niezależnie na wszystkich
+ * rdzeniach z różnymi ziarnami. Najlepsze dotąd znalezione przypisanie jest współdzielone; po
+ * upływie budżetu czasu jest naprawiane tak, by nie zawierało żadnego konfliktu.
+ */
+@Slf4j
+@Component
+public class TimetableSolver {
+
+  private static final int LATE_ACCEPTANCE_LENGTH = 2_000;
+  private static final int CONSTRUCTION_SAMPLES = 64;
+  // Co która zmiana zdejmuje sesję zamiast ją przenosić
+  private static final int UNASSIGN_ODDS = 20;
+
+  private final int threads;
+  private final ExecutorService executor;
+
+  public TimetableSolver(@Value("${schedule.solver.threads:0}") int threads) {
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor = Executors.newFixedThreadPool(this.threads);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  record Solution(int[] placement, int[] room, long score, long iterations, int threads) {}
+
+  Solution solve(SolverProblem problem, Duration timeLimit) {
+    long budget = timeLimit.toNanos();
+    long seed = System.nanoTime();
+    Best best = new Best();
+
+    // Pula jest wspólna dla równoległych rozwiązań, więc budżet liczy się od startu wątku, a nie
+    // od zlecenia - zadania czekające w kolejce nie tracą czasu na przeszukiwanie
+    List<Callable<Long>> workers = new ArrayList<>();
+    for (int w = 0; w < threads; w++) {
+      long workerSeed = seed + w;
+      workers.add(
+          () ->
+              search(problem, System.nanoTime() + budget, new SplittableRandom(workerSeed), best));
+    }
+
+    long iterations = 0;
+    try {
+      for (Future<Long> future : executor.invokeAll(workers)) iterations += future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Błąd solvera planu", e.getCause());
+    }
+
+    SolverState result = best.restore(problem);
+    repair(result);
+    log.info(
+        "Solver: {} iteracji na {} wątkach, wynik {}", iterations, threads, result.score());
+    return new Solution(result.placement, result.room, result.score(), iterations, threads);
+  }
+
+  private long search(SolverProblem problem, long deadline, SplittableRandom random, Best best) {
+    SolverState state = new SolverState(problem);
+    construct(problem, state, random);
+
+    long current = state.score();
+    long localBest = current;
+    best.offer(state);
+
+    int[] movable =
+        IntStream.range(0, problem.sessionCount())
+            .filter(s -> problem.demandDomain[problem.demandOf(s)].length > 0)
+            .toArray();
+    if (movable.length == 0 || problem.rooms.isEmpty()) return 0;
+
+    long[] history = new long[LATE_ACCEPTANCE_LENGTH];
+    Arrays.fill(history, current);
+
+    long iteration = 0;
+    while ((iteration & 1023) != 0 || System.nanoTime() < deadline) {
+      if (Thread.currentThread().isInterrupted()) break;
+
+      int session = movable[random.nextInt(movable.length)];
+      int oldPlacement = state.placement[session];
+      int oldRoom = state.room[session];
+
+      if (oldPlacement != UNASSIGNED) state.unassign(session);
+      if (oldPlacement == UNASSIGNED || random.nextInt(UNASSIGN_ODDS) != 0) {
+        int[] domain = problem.demandDomain[problem.demandOf(session)];
+        int placement = domain[random.nextInt(domain.length)];
+        state.assign(session, placement, state.pickRoom(session, placement, random));
+      }
+
+      long candidate = state.score();
+      int h = (int) (iteration % LATE_ACCEPTANCE_LENGTH);
+      if (candidate <= current || candidate < history[h]) {
+        current = candidate;
+        if (current < localBest) {
+          localBest = current;
+          best.offer(state);
+        }
+      } else {
+        if (state.placement[session] != UNASSIGNED) state.unassign(session);
+        if (oldPlacement != UNASSIGNED) state.assign(session, oldPlacement, oldRoom);
+      }
+      if (current < history[h]) history[h] = current;
+      iteration++;
+    }
+    return iteration;
+  }
+
+  // Najpierw sesje z najmniejszą liczbą możliwych terminów; każda trafia w najtańsze z próbki
+  private void construct(SolverProblem problem, SolverState state, SplittableRandom random) {
+    int[] order =
+        IntStream.range(0, problem.sessionCount())
+            .boxed()
+            .sorted(
+                Comparator.comparingInt(
+                    (Integer s) -> problem.demandDomain[problem.demandOf(s)].length))
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+    for (int session : order) {
+      int[] domain = problem.demandDomain[problem.demandOf(session)];
+      if (domain.length == 0 || problem.rooms.isEmpty()) continue;
+
+      long bestScore = state.score();
+      int bestPlacement = UNASSIGNED;
+      int bestRoom = UNASSIGNED;
+      int samples = Math.min(domain.length, CONSTRUCTION_SAMPLES);
+      for (int k = 0; k < samples; k++) {
+        int placement =
+            samples == domain.length ? domain[k] : domain[random.nextInt(domain.length)];
+        int room = state.pickRoom(session, placement, random);
+        state.assign(session, placement, room);
+        long score = state.score();
+        state.unassign(session);
+        if (score < bestScore) {
+          bestScore = score;
+          bestPlacement = placement;
+          bestRoom = room;
+        }
+      }
+      if (bestPlacement != UNASSIGNED) state.assign(session, bestPlacement, bestRoom);
+    }
+  }
+
+  // Zdejmuje sesje uczestniczące w konfliktach, aż przypisanie będzie dopuszczalne
+  private void repair(SolverState state) {
+    boolean removed = true;
+    while (!state.isFeasible() && removed) {
+      removed = false;
+      for (int s = 0; s < state.placement.length && !removed; s++) {
+        if (state.hasConflict(s)) {
+          state.unassign(s);
+          removed = true;
+        }
+      }
+    }
+  }
+
+  /** Najlepsze dotąd przypisanie, współdzielone przez wątki przeszukiwania. */
+  private static final class Best {
+    private long score = Long.MAX_VALUE;
+    private int[] placement;
+    private int[] room;
+
+    synchronized void offer(SolverState state) {
+      long candidate = state.score();
+      if (candidate < score) {
+        score = candidate;
+        placement = state.placement.clone();
+        room = state.room.clone();
+      }
+    }
+
+    synchronized SolverState restore(SolverProblem problem) {
+      return placement == null
+          ? new SolverState(problem)
+          : new SolverState(problem, placement, room);
+    }
+  }
+}
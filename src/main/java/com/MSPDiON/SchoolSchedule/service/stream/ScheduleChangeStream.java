@@ -0,0 +1,246 @@
+package com.MSPDiON.SchoolSchedule.service.stream;
+
+import com.MSPDiON.SchoolSchedule.dto.ScheduleChangeDto;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Strumień zmian planu (SSE) zamiast odpytywania. Każda zmiana slotu dostaje kolejny numer i
+ * trafia do ograniczonego bufora cyklicznego, z którego klient wznawia strumień po Last-Event-ID.
+ * Id zdarzenia to "epoka-numer", gdzie epoka to czas startu instancji. Gdy epoka w Last-Event-ID
+ * nie pasuje (restart lub inna instancja), id jest nieczytelne albo żądanego zdarzenia nie ma już w
+ * buforze, klient dostaje zdarzenie "reset" i powinien pobrać plan od nowa.
+ *
+ * <p>Każdy subskrybent ma własną, ograniczoną kolejkę wysyłki opróżnianą na wątku wirtualnym, więc
+ * wolny klient nie wstrzymuje pozostałych. Klient, którego kolejka się przepełni, jest rozłączany i
+ * wznawia strumień po Last-Event-ID.
+ */
+@Slf4j
+@Component
+public class ScheduleChangeStream {
+
+  private static final String CHANGE_EVENT = "schedule-change";
+  private static final String RESET_EVENT = "reset";
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final ScheduleChangeDto[] buffer;
+  private final long emitterTimeoutMillis;
+  private final Executor delivery;
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  private long lastSequence = 0;
+
+  @Autowired
+  public ScheduleChangeStream(
+      @Value("${schedule.stream.buffer-size:1000}") int bufferSize,
+      @Value("${schedule.stream.timeout-minutes:30}") long timeoutMinutes) {
+    this(bufferSize, timeoutMinutes, Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  ScheduleChangeStream(int bufferSize, long timeoutMinutes, Executor delivery) {
+    this.buffer = new ScheduleChangeDto[bufferSize];
+    this.emitterTimeoutMillis = timeoutMinutes * 60_000;
+    this.delivery = delivery;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (delivery instanceof ExecutorService executor) executor.shutdownNow();
+    subscribers.forEach(s -> s.emitter().complete());
+  }
+
+  /**
+   * Nowa subskrypcja.
+   *
+   * @param filters typ -> id podmiotu; pusta mapa = wszystkie zmiany
+   * @param resumeAfter id ostatniego odebranego zdarzenia albo null
+   */
+  public SseEmitter subscribe(Map<ResourceType, Long> filters, String resumeAfter) {
+    return subscribe(filters, resumeAfter, () -> new SseEmitter(emitterTimeoutMillis));
+  }
+
+  SseEmitter subscribe(
+      Map<ResourceType, Long> filters, String resumeAfter, Supplier<SseEmitter> emitters) {
+    SseEmitter emitter = emitters.get();
+
+    // Rejestracja, odczyt bufora i kolejkowanie powtórki pod jednym lockiem: zmiany z bufora
+    // trafiają do kolejki subskrybenta przed wszystkimi późniejszymi, nadawanymi na żywo.
+    synchronized (this) {
+      Subscriber subscriber = new Subscriber(emitter, Map.copyOf(filters));
+      emitter.onCompletion(() -> subscribers.remove(subscriber));
+      emitter.onTimeout(() -> subscribers.remove(subscriber));
+      emitter.onError(e -> subscribers.remove(subscriber));
+
+      if (resumeAfter != null) {
+        Long sequence = sequenceOf(resumeAfter);
+        if (sequence == null || !canResume(sequence)) {
+          subscriber.enqueue(new Outgoing(RESET_EVENT, "", idOf(lastSequence)));
+        } else {
+          since(sequence).stream().filter(subscriber::accepts).forEach(subscriber::enqueue);
+        }
+      }
+      subscribers.add(subscriber);
+    }
+    return emitter;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onSlotChanged(ScheduleSlotChangedEvent event) {
+    synchronized (this) {
+      ScheduleChangeDto change = toChange(idOf(++lastSequence), event);
+      buffer[(int) (lastSequence % buffer.length)] = change;
+      subscribers.stream().filter(s -> s.accepts(change)).forEach(s -> s.enqueue(change));
+    }
+  }
+
+  String idOf(long sequence) {
+    return epoch + "-" + sequence;
+  }
+
+  // Numer zdarzenia z id tej instancji; null dla obcej epoki lub nieczytelnego id.
+  private Long sequenceOf(String eventId) {
+    String prefix = epoch + "-";
+    if (!eventId.startsWith(prefix)) return null;
+    try {
+      return Long.parseLong(eventId.substring(prefix.length()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  // Wznowienie możliwe, gdy wszystkie zdarzenia po resumeAfter są jeszcze w buforze.
+  private boolean canResume(long resumeAfter) {
+    return resumeAfter >= 0
+        && resumeAfter <= lastSequence
+        && lastSequence - resumeAfter <= buffer.length;
+  }
+
+  private List<ScheduleChangeDto> since(long resumeAfter) {
+    List<ScheduleChangeDto> changes = new ArrayList<>();
+    for (long sequence = resumeAfter + 1; sequence <= lastSequence; sequence++) {
+      changes.add(buffer[(int) (sequence % buffer.length)]);
+    }
+    return changes;
+  }
+
+  private static ScheduleChangeDto toChange(String eventId, ScheduleSlotChangedEvent event) {
+    return ScheduleChangeDto.builder()
+        .eventId(eventId)
+        .type(event.type().name())
+        .slotId(event.slotId())
+        .therapistIds(idsOf(event, ResourceType.THERAPIST))
+        .roomIds(idsOf(event, ResourceType.ROOM))
+        .classIds(idsOf(event, ResourceType.CLASS))
+        .studentIds(idsOf(event, ResourceType.STUDENT))
+        .build();
+  }
+
+  private static Set<Long> idsOf(ScheduleSlotChangedEvent event, ResourceType type) {
+    Set<Long> ids = new HashSet<>();
+    Stream.of(event.before(), event.after())
+        .filter(Objects::nonNull)
+        .map(s -> s.resourceIds(type))
+        .forEach(ids::addAll);
+    return Set.copyOf(ids);
+  }
+
+  private record Outgoing(String name, Object data, String id) {}
+
+  /** Subskrybent z własną kolejką; wysyłki jednego klienta są sekwencyjne, różnych - niezależne. */
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final Map<ResourceType, Long> filters;
+    private final BlockingQueue<Outgoing> outbox = new ArrayBlockingQueue<>(buffer.length + 1);
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    Subscriber(SseEmitter emitter, Map<ResourceType, Long> filters) {
+      this.emitter = emitter;
+      this.filters = filters;
+    }
+
+    SseEmitter emitter() {
+      return emitter;
+    }
+
+    boolean accepts(ScheduleChangeDto change) {
+      if (filters.isEmpty()) return true;
+      return filters.entrySet().stream()
+          .anyMatch(f -> idsFor(change, f.getKey()).contains(f.getValue()));
+    }
+
+    void enqueue(ScheduleChangeDto change) {
+      enqueue(new Outgoing(CHANGE_EVENT, change, change.getEventId()));
+    }
+
+    void enqueue(Outgoing outgoing) {
+      if (!outbox.offer(outgoing)) {
+        log.debug("Kolejka subskrybenta strumienia zmian przepełniona, rozłączam");
+        close(null);
+        return;
+      }
+      if (draining.compareAndSet(false, true)) delivery.execute(this::drain);
+    }
+
+    private void drain() {
+      do {
+        Outgoing outgoing;
+        while ((outgoing = outbox.poll()) != null) {
+          if (!send(outgoing)) return;
+        }
+        draining.set(false);
+      } while (!outbox.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private boolean send(Outgoing outgoing) {
+      try {
+        emitter.send(
+            SseEmitter.event().id(outgoing.id()).name(outgoing.name()).data(outgoing.data()));
+        return true;
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Zamykam subskrypcję strumienia zmian: {}", e.getMessage());
+        close(e);
+        return false;
+      }
+    }
+
+    private void close(Throwable error) {
+      subscribers.remove(this);
+      outbox.clear();
+      if (error != null) emitter.completeWithError(error);
+      else emitter.complete();
+    }
+  }
+
+  private static Set<Long> idsFor(ScheduleChangeDto change, ResourceType type) {
+    return switch (type) {
+      case THERAPIST -> change.getTherapistIds();
+      case ROOM -> change.getRoomIds();
+      case CLASS -> change.getClassIds();
+      case STUDENT -> change.getStudentIds();
+    };
+  }
+}
@@ -0,0 +1,78 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import static com.MSPDiON.SchoolSchedule.utils.DateUtils.getPolishDayName;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindowCache;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Slot musi mieścić się w oknach dostępności terapeuty i każdego ucznia (także uczniów klasy) w
+ * danym dniu tygodnia. Podmioty bez żadnych wpisów dostępności nie są ograniczane.
+ */
+@Component
+@Order(75)
+@RequiredArgsConstructor
+public class AvailabilityWindowRule implements SlotValidationRule {
+
+  private final AvailabilityWindowCache availabilityCache;
+
+  @Override
+  public String code() {
+    return "OUTSIDE_AVAILABILITY";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    List<SlotViolationDto> violations = new ArrayList<>();
+
+    if (!isCovered(ResourceType.THERAPIST, slot.getTherapist().getId(), slot)) {
+      violations.add(
+          violation(
+              "therapist",
+              String.format(
+                  "Terapeuta '%s %s' nie jest dostępny: %s %s - %s",
+                  slot.getTherapist().getFirstName(),
+                  slot.getTherapist().getLastName(),
+                  getPolishDayName(slot.getDayOfWeek()),
+                  slot.getStartTime(),
+                  slot.getEndTime())));
+    }
+
+    Map<Long, Student> students = new LinkedHashMap<>();
+    context.classStudents().forEach(s -> students.put(s.getId(), s));
+    if (slot.getStudents() != null) slot.getStudents().forEach(s -> students.put(s.getId(), s));
+
+    for (Student student : students.values()) {
+      if (!isCovered(ResourceType.STUDENT, student.getId(), slot)) {
+        violations.add(
+            violation(
+                "students",
+                String.format(
+                    "Uczeń '%s %s' nie jest dostępny: %s %s - %s",
+                    student.getFirstName(),
+                    student.getLastName(),
+                    getPolishDayName(slot.getDayOfWeek()),
+                    slot.getStartTime(),
+                    slot.getEndTime())));
+      }
+    }
+    return violations;
+  }
+
+  private boolean isCovered(ResourceType type, Long entityId, ScheduleSlot slot) {
+    return availabilityCache
+        .get(type, entityId)
+        .covers(slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
+  }
+}
@@ -0,0 +1,29 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(20)
+public class ClassOrStudentsRequiredRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "CLASS_OR_STUDENTS_REQUIRED";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    boolean hasClass = slot.getStudentClass() != null;
+    boolean hasStudents = slot.getStudents() != null && !slot.getStudents().isEmpty();
+
+    if (hasClass || hasStudents) return List.of();
+    return List.of(
+        violation(
+            "students", "Terapeuta musi mieć przypisaną klasę lub przynajmniej jednego ucznia."));
+  }
+}
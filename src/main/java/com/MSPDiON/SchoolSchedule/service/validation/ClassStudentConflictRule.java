@@ -0,0 +1,44 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import static com.MSPDiON.SchoolSchedule.service.validation.SlotValidationContext.hasStudent;
+import static com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder.buildStudentClassConflictMessage;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.model.StudentClass;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Żaden uczeń klasy nie może mieć innych zajęć w czasie zajęć klasowych. */
+@Component
+@Order(60)
+public class ClassStudentConflictRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "CLASS_STUDENT_CONFLICT";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    List<SlotViolationDto> violations = new ArrayList<>();
+    StudentClass studentClass = context.slot().getStudentClass();
+    if (studentClass == null) return violations;
+
+    for (Student student : context.classStudents()) {
+      List<ScheduleSlot> conflicts = context.findOverlapping(c -> hasStudent(c, student.getId()));
+
+      if (!conflicts.isEmpty()) {
+        violations.add(
+            violation(
+                "studentClass",
+                buildStudentClassConflictMessage(student, studentClass),
+                SlotValidationContext.idsOf(conflicts)));
+      }
+    }
+    return violations;
+  }
+}
@@ -0,0 +1,58 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import static com.MSPDiON.SchoolSchedule.service.validation.SlotValidationContext.hasStudent;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Uczeń może mieć maksymalnie 3 zajęcia dziennie (nie licząc zajęć klasowych). */
+@Component
+@Order(10)
+public class DailySessionLimitRule implements SlotValidationRule {
+
+  private static final int MAX_DAILY_SESSIONS = 3;
+
+  @Override
+  public String code() {
+    return "DAILY_SESSION_LIMIT";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    List<SlotViolationDto> violations = new ArrayList<>();
+    if (slot.getStudents() == null) return violations;
+
+    for (Student student : slot.getStudents()) {
+      List<ScheduleSlot> sameDay =
+          context.relatedSlots().stream()
+              .filter(s -> hasStudent(s, student.getId()))
+              .filter(s -> s.getDayOfWeek() == slot.getDayOfWeek())
+              .filter(s -> s.getStudentClass() == null)
+              .filter(context::overlapsValidity)
+              .toList();
+
+      if (sameDay.size() + 1 > MAX_DAILY_SESSIONS) {
+        violations.add(
+            violation(
+                "students",
+                "Uczeń "
+                    + student.getFirstName()
+                    + " "
+                    + student.getLastName()
+                    + " ma już zaplanowane "
+                    + sameDay.size()
+                    + " zajęcia tego dnia. Maksymalnie dozwolone to "
+                    + MAX_DAILY_SESSIONS
+                    + ".",
+                SlotValidationContext.idsOf(sameDay)));
+      }
+    }
+    return violations;
+  }
+}
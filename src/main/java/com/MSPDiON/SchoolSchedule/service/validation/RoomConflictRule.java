@@ -0,0 +1,32 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(40)
+public class RoomConflictRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "ROOM_CONFLICT";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    Long roomId = slot.getRoom().getId();
+    List<ScheduleSlot> conflicts = context.findOverlapping(c -> c.getRoom().getId().equals(roomId));
+
+    if (conflicts.isEmpty()) return List.of();
+    return List.of(
+        violation(
+            "room",
+            ConflictMessageBuilder.buildRoomConflictMessage(slot, conflicts),
+            SlotValidationContext.idsOf(conflicts)));
+  }
+}
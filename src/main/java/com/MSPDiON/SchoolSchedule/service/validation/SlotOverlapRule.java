@@ -0,0 +1,45 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Slot nie może kolidować z zajęciami tej samej klasy ani tych samych uczniów. */
+@Component
+@Order(90)
+public class SlotOverlapRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "SLOT_OVERLAP";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    Set<Long> studentIds = new HashSet<>();
+    if (slot.getStudents() != null) {
+      slot.getStudents().forEach(s -> studentIds.add(s.getId()));
+    }
+
+    List<ScheduleSlot> conflicts =
+        context.findOverlapping(
+            c ->
+                (slot.getStudentClass() != null
+                        && c.getStudentClass() != null
+                        && slot.getStudentClass().getId().equals(c.getStudentClass().getId()))
+                    || c.getStudents().stream().anyMatch(s -> studentIds.contains(s.getId())));
+
+    if (conflicts.isEmpty()) return List.of();
+    return List.of(
+        violation(
+            "startTime",
+            "Godziny slotu kolidują z istniejącym slotem w tym samym dniu tygodnia i okresie "
+                + "obowiązywania.",
+            SlotValidationContext.idsOf(conflicts)));
+  }
+}
@@ -0,0 +1,60 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import static com.MSPDiON.SchoolSchedule.utils.DateUtils.isTimeOverlap;
+
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Dane do walidacji slotu pobrane jednorazowo: uczniowie klasy oraz wszystkie sloty z tego samego
+ * dnia, które dotyczą terapeuty lub sali (w nachodzących godzinach), uczniów slotu, uczniów klasy
+ * lub samej klasy. Reguły filtrują tę listę w pamięci i nie mogą jej modyfikować ani odpytywać
+ * bazy, bo są wykonywane równolegle.
+ */
+public record SlotValidationContext(
+    ScheduleSlot slot, List<Student> classStudents, List<ScheduleSlot> relatedSlots) {
+
+  /** Sloty kolidujące z walidowanym slotem i spełniające warunek zasobu. */
+  public List<ScheduleSlot> findOverlapping(Predicate<ScheduleSlot> touchesResource) {
+    return relatedSlots.stream()
+        .filter(touchesResource)
+        .filter(c -> areSlotsOverlapping(slot, c))
+        .toList();
+  }
+
+  public boolean overlapsValidity(ScheduleSlot other) {
+    return areValidityPeriodsOverlapping(slot, other);
+  }
+
+  public static boolean hasStudent(ScheduleSlot slot, Long studentId) {
+    return slot.getStudents() != null
+        && slot.getStudents().stream().anyMatch(s -> s.getId().equals(studentId));
+  }
+
+  /** Id slotów (niezapisane sloty z tej samej paczki nie mają id). */
+  public static List<Long> idsOf(List<ScheduleSlot> slots) {
+    return slots.stream().map(ScheduleSlot::getId).filter(Objects::nonNull).toList();
+  }
+
+  public static boolean areValidityPeriodsOverlapping(ScheduleSlot slot1, ScheduleSlot slot2) {
+    LocalDate slot1From = slot1.getValidFrom();
+    LocalDate slot1To = slot1.getValidTo() != null ? slot1.getValidTo() : LocalDate.MAX;
+    LocalDate slot2From = slot2.getValidFrom();
+    LocalDate slot2To = slot2.getValidTo() != null ? slot2.getValidTo() : LocalDate.MAX;
+
+    return !slot1To.isBefore(slot2From) && !slot1From.isAfter(slot2To);
+  }
+
+  private static boolean areSlotsOverlapping(ScheduleSlot slot1, ScheduleSlot slot2) {
+    if (!areValidityPeriodsOverlapping(slot1, slot2)) return false;
+
+    if (!slot1.getDayOfWeek().equals(slot2.getDayOfWeek())) return false;
+
+    return isTimeOverlap(
+        slot1.getStartTime(), slot1.getEndTime(), slot2.getStartTime(), slot2.getEndTime());
+  }
+}
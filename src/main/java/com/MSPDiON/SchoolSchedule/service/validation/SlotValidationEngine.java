@@ -0,0 +1,89 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wykonuje wszystkie reguły walidacji slotu na wspólnym kontekście, równolegle (domyślnie) lub
+ * po kolei, i zwraca pełną listę naruszeń w kolejności reguł. Czas każdej reguły trafia do
+ * histogramu schedule.validation.rule z tagiem rule.
+ */
+@Component
+public class SlotValidationEngine {
+
+  private final List<SlotValidationRule> rules;
+  private final Map<String, Timer> timers;
+  private final ExecutorService executor;
+
+  public SlotValidationEngine(
+      List<SlotValidationRule> rules,
+      MeterRegistry meterRegistry,
+      @Value("${schedule.validation.parallel:true}") boolean parallel) {
+    this.rules = List.copyOf(rules);
+    this.timers =
+        rules.stream()
+            .collect(
+                Collectors.toMap(
+                    SlotValidationRule::code,
+                    rule ->
+                        Timer.builder("schedule.validation.rule")
+                            .description("Czas wykonania reguły walidacji slotu")
+                            .tag("rule", rule.code())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)));
+    this.executor =
+        parallel && rules.size() > 1
+            ? Executors.newFixedThreadPool(
+                Math.min(rules.size(), Runtime.getRuntime().availableProcessors()))
+            : null;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (executor != null) executor.shutdownNow();
+  }
+
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    if (executor == null) {
+      return validateInline(context);
+    }
+
+    List<CompletableFuture<List<SlotViolationDto>>> futures =
+        rules.stream()
+            .map(rule -> CompletableFuture.supplyAsync(() -> run(rule, context), executor))
+            .toList();
+
+    List<SlotViolationDto> violations = new ArrayList<>();
+    try {
+      futures.stream().map(CompletableFuture::join).forEach(violations::addAll);
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) throw cause;
+      throw e;
+    }
+    return violations;
+  }
+
+  /**
+   * Reguły po kolei w wątku wywołującym. Dla paczek slotów, gdzie kontekst jest już w pamięci i
+   * przekazanie każdego slotu do puli kosztowałoby więcej niż same reguły.
+   */
+  public List<SlotViolationDto> validateInline(SlotValidationContext context) {
+    return rules.stream().flatMap(rule -> run(rule, context).stream()).toList();
+  }
+
+  private List<SlotViolationDto> run(SlotValidationRule rule, SlotValidationContext context) {
+    return timers.get(rule.code()).record(() -> rule.validate(context));
+  }
+}
@@ -0,0 +1,29 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import java.util.List;
+
+/**
+ * Reguła walidacji slotu. Implementacje są beanami Springa (kolejność wyników wg @Order) i są
+ * wykonywane równolegle przez SlotValidationEngine na wspólnym, tylko do odczytu kontekście.
+ */
+public interface SlotValidationRule {
+
+  /** Kod reguły, używany w naruszeniach i jako tag metryk. */
+  String code();
+
+  List<SlotViolationDto> validate(SlotValidationContext context);
+
+  default SlotViolationDto violation(String field, String message) {
+    return violation(field, message, List.of());
+  }
+
+  default SlotViolationDto violation(String field, String message, List<Long> conflictingSlotIds) {
+    return SlotViolationDto.builder()
+        .code(code())
+        .field(field)
+        .message(message)
+        .conflictingSlotIds(conflictingSlotIds)
+        .build();
+  }
+}
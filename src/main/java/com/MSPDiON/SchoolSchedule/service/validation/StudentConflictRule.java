@@ -0,0 +1,41 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import static com.MSPDiON.SchoolSchedule.service.validation.SlotValidationContext.hasStudent;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(50)
+public class StudentConflictRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "STUDENT_CONFLICT";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    List<SlotViolationDto> violations = new ArrayList<>();
+    if (context.slot().getStudents() == null) return violations;
+
+    for (Student student : context.slot().getStudents()) {
+      List<ScheduleSlot> conflicts = context.findOverlapping(c -> hasStudent(c, student.getId()));
+
+      if (!conflicts.isEmpty()) {
+        violations.add(
+            violation(
+                "students",
+                ConflictMessageBuilder.buildStudentConflictMessage(student, conflicts),
+                SlotValidationContext.idsOf(conflicts)));
+      }
+    }
+    return violations;
+  }
+}
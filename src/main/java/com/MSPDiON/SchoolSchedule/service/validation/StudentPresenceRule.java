@@ -0,0 +1,43 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import static com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder.buildPresenceConflictMessage;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Zajęcia muszą mieścić się w godzinach obecności ucznia (przyjazd - wyjazd). */
+@Component
+@Order(70)
+public class StudentPresenceRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "STUDENT_PRESENCE";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    List<SlotViolationDto> violations = new ArrayList<>();
+
+    List<Student> studentsToCheck = new ArrayList<>(context.classStudents());
+    if (slot.getStudents() != null) {
+      studentsToCheck.addAll(slot.getStudents());
+    }
+
+    for (Student student : studentsToCheck) {
+      if (student.getArrivalTime() == null || student.getDepartureTime() == null) continue;
+
+      if (slot.getStartTime().isBefore(student.getArrivalTime())
+          || slot.getEndTime().isAfter(student.getDepartureTime())) {
+        violations.add(violation("students", buildPresenceConflictMessage(student)));
+      }
+    }
+    return violations;
+  }
+}
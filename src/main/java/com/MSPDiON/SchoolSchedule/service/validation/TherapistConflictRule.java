@@ -0,0 +1,33 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import com.MSPDiON.SchoolSchedule.utils.ConflictMessageBuilder;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(30)
+public class TherapistConflictRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "THERAPIST_CONFLICT";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    Long therapistId = slot.getTherapist().getId();
+    List<ScheduleSlot> conflicts =
+        context.findOverlapping(c -> c.getTherapist().getId().equals(therapistId));
+
+    if (conflicts.isEmpty()) return List.of();
+    return List.of(
+        violation(
+            "therapist",
+            ConflictMessageBuilder.buildTherapistConflictMessage(slot, conflicts),
+            SlotValidationContext.idsOf(conflicts)));
+  }
+}
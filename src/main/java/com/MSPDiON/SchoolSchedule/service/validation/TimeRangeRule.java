@@ -0,0 +1,34 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Godzina zakończenia musi być późniejsza niż godzina rozpoczęcia. Bez tej reguły odwrócony
+ * zakres dochodzi dopiero do bazy, gdzie kolumna week_range (V7) odrzuca go błędem int4range.
+ */
+@Component
+@Order(85)
+public class TimeRangeRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "TIME_RANGE";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    if (slot.getStartTime() == null || slot.getEndTime() == null) {
+      return List.of(violation("startTime", "Godzina rozpoczęcia i zakończenia są wymagane"));
+    }
+    if (!slot.getStartTime().isBefore(slot.getEndTime())) {
+      return List.of(
+          violation("endTime", "Godzina zakończenia musi być późniejsza niż godzina rozpoczęcia"));
+    }
+    return List.of();
+  }
+}
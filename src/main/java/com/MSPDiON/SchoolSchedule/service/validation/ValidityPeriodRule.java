@@ -0,0 +1,29 @@
+package com.MSPDiON.SchoolSchedule.service.validation;
+
+import com.MSPDiON.SchoolSchedule.dto.SlotViolationDto;
+import com.MSPDiON.SchoolSchedule.model.ScheduleSlot;
+import java.util.List;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(80)
+public class ValidityPeriodRule implements SlotValidationRule {
+
+  @Override
+  public String code() {
+    return "VALIDITY_PERIOD";
+  }
+
+  @Override
+  public List<SlotViolationDto> validate(SlotValidationContext context) {
+    ScheduleSlot slot = context.slot();
+    if (slot.getValidFrom() == null) {
+      return List.of(violation("validFrom", "Data rozpoczęcia obowiązywania slotu jest wymagana"));
+    }
+    if (slot.getValidTo() != null && slot.getValidFrom().isAfter(slot.getValidTo())) {
+      return List.of(violation("validTo", "Data zakończenia nie może być przed datą rozpoczęcia"));
+    }
+    return List.of();
+  }
+}
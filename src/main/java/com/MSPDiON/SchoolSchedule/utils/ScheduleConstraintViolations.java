@@ -0,0 +1,42 @@
+package com.MSPDiON.SchoolSchedule.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tłumaczy naruszenia ograniczeń wykluczających (migracja V7) na błędy pól w formacie
+ * ConflictException. Nazwa ograniczenia jest szukana w komunikatach całego łańcucha wyjątków,
+ * bo zależnie od ścieżki zapisu (JPA lub JdbcTemplate) trafia do innego wyjątku.
+ *
+ * <p>Ograniczenia obejmują terapeutę, salę i uczniów przypisanych do slotu wprost. Uczniowie
+ * należący do klasy slotu klasowego nie są nimi objęci (przynależność do klasy zmienia się
+ * niezależnie od slotów), więc kolizje zajęć klasowych z zajęciami jej uczniów wykrywa tylko
+ * walidacja w aplikacji (ClassStudentConflictRule) wykonywana pod blokadami zasobów.
+ */
+public class ScheduleConstraintViolations {
+
+  private static final Map<String, Map.Entry<String, String>> CONSTRAINTS =
+      Map.of(
+          "ex_schedule_slot_therapist",
+          Map.entry("therapist", "Terapeuta ma już zaplanowane zajęcia w tym terminie."),
+          "ex_schedule_slot_room",
+          Map.entry("room", "Sala jest już zajęta w tym terminie."),
+          "ex_schedule_slot_students_student",
+          Map.entry("students", "Uczeń ma już zaplanowane zajęcia w tym terminie."));
+
+  /** Błędy pól dla rozpoznanych ograniczeń; pusta mapa, gdy wyjątek dotyczy czegoś innego. */
+  public static Map<String, String> toFieldErrors(Throwable ex) {
+    Map<String, String> errors = new LinkedHashMap<>();
+    for (Throwable t = ex; t != null && t.getCause() != t; t = t.getCause()) {
+      String message = t.getMessage();
+      if (message == null) continue;
+      CONSTRAINTS.forEach(
+          (constraint, error) -> {
+            if (message.contains(constraint)) {
+              errors.putIfAbsent(error.getKey(), error.getValue());
+            }
+          });
+    }
+    return errors;
+  }
+}
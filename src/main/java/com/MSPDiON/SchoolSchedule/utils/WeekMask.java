@@ -0,0 +1,130 @@
+package com.MSPDiON.SchoolSchedule.utils;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zajętość tygodnia jako mapa bitowa: 7 dni po 288 komórek 5-minutowych, każdy dzień w 5 słowach
+ * long. Ustawiony bit oznacza, że komórka jest wolna. Część wspólna wielu uczestników to AND
+ * kolejnych masek. Statyczne metody operują na zajętości pojedynczego dnia (long[] dnia, bit =
+ * komórka zajęta).
+ */
+public final class WeekMask {
+
+  public static final int CELL_MINUTES = 5;
+  public static final int DAY_CELLS = 24 * 60 / CELL_MINUTES;
+  public static final int WORDS_PER_DAY = (DAY_CELLS + 63) / 64;
+
+  private final long[] words = new long[7 * WORDS_PER_DAY];
+
+  /** Okno wolnego czasu; dayOfWeek 1 = poniedziałek. */
+  public record Window(int dayOfWeek, LocalTime start, LocalTime end) {}
+
+  /** Maska z całym tygodniem wolnym. */
+  public static WeekMask allFree() {
+    WeekMask mask = new WeekMask();
+    for (int day = 1; day <= 7; day++) mask.setRange(day, 0, DAY_CELLS, true);
+    return mask;
+  }
+
+  /** Oznacza przedział jako wolny (start zaokrąglany w górę, koniec w dół). */
+  public void free(int dayOfWeek, LocalTime start, LocalTime end) {
+    setRange(dayOfWeek, ceilCell(start), floorCell(end), true);
+  }
+
+  /** Oznacza przedział jako zajęty (start zaokrąglany w dół, koniec w górę). */
+  public void occupy(int dayOfWeek, LocalTime start, LocalTime end) {
+    setRange(dayOfWeek, floorCell(start), ceilCell(end), false);
+  }
+
+  public void and(WeekMask other) {
+    for (int i = 0; i < words.length; i++) words[i] &= other.words[i];
+  }
+
+  /** Zdejmuje z maski komórki zajęte w danym dniu. */
+  public void andNot(int dayOfWeek, long[] occupiedDay) {
+    int base = (dayOfWeek - 1) * WORDS_PER_DAY;
+    for (int i = 0; i < WORDS_PER_DAY; i++) words[base + i] &= ~occupiedDay[i];
+  }
+
+  /** Zajętość dnia dla przedziału (start zaokrąglany w dół, koniec w górę). */
+  public static long[] dayBits(LocalTime start, LocalTime end) {
+    long[] day = new long[WORDS_PER_DAY];
+    for (int cell = floorCell(start); cell < Math.min(ceilCell(end), DAY_CELLS); cell++) {
+      day[cell / 64] |= 1L << (cell % 64);
+    }
+    return day;
+  }
+
+  public static void or(long[] target, long[] day) {
+    for (int i = 0; i < WORDS_PER_DAY; i++) target[i] |= day[i];
+  }
+
+  public static boolean intersects(long[] a, long[] b) {
+    for (int i = 0; i < WORDS_PER_DAY; i++) {
+      if ((a[i] & b[i]) != 0) return true;
+    }
+    return false;
+  }
+
+  public static int cardinality(long[] day) {
+    int count = 0;
+    for (long word : day) count += Long.bitCount(word);
+    return count;
+  }
+
+  /** Maksymalne ciągłe okna wolnego czasu nie krótsze niż minMinutes. */
+  public List<Window> windows(int dayOfWeek, int minMinutes) {
+    int minCells = Math.max(1, (minMinutes + CELL_MINUTES - 1) / CELL_MINUTES);
+    int base = (dayOfWeek - 1) * WORDS_PER_DAY;
+    List<Window> result = new ArrayList<>();
+
+    int cell = 0;
+    while (cell < DAY_CELLS) {
+      int start = nextSet(base, cell, true);
+      if (start >= DAY_CELLS) break;
+      int end = nextSet(base, start, false);
+      if (end - start >= minCells) {
+        result.add(new Window(dayOfWeek, toTime(start), toTime(end)));
+      }
+      cell = end;
+    }
+    return result;
+  }
+
+  // Pierwsza komórka od "from" o wartości "value" (lub DAY_CELLS)
+  private int nextSet(int base, int from, boolean value) {
+    int cell = from;
+    while (cell < DAY_CELLS) {
+      long word = words[base + cell / 64];
+      if (!value) word = ~word;
+      word &= -1L << (cell % 64);
+      if (word != 0) {
+        return Math.min(DAY_CELLS, (cell / 64) * 64 + Long.numberOfTrailingZeros(word));
+      }
+      cell = (cell / 64 + 1) * 64;
+    }
+    return DAY_CELLS;
+  }
+
+  private void setRange(int dayOfWeek, int from, int to, boolean value) {
+    int base = (dayOfWeek - 1) * WORDS_PER_DAY;
+    for (int cell = Math.max(0, from); cell < Math.min(to, DAY_CELLS); cell++) {
+      if (value) words[base + cell / 64] |= 1L << (cell % 64);
+      else words[base + cell / 64] &= ~(1L << (cell % 64));
+    }
+  }
+
+  private static int floorCell(LocalTime time) {
+    return (time.getHour() * 60 + time.getMinute()) / CELL_MINUTES;
+  }
+
+  private static int ceilCell(LocalTime time) {
+    return (time.getHour() * 60 + time.getMinute() + CELL_MINUTES - 1) / CELL_MINUTES;
+  }
+
+  private static LocalTime toTime(int cell) {
+    return cell >= DAY_CELLS ? LocalTime.MAX : LocalTime.MIDNIGHT.plusMinutes(cell * CELL_MINUTES);
+  }
+}
@@ -0,0 +1,80 @@
+package com.MSPDiON.SchoolSchedule.utils.xlsx;
+
+import com.MSPDiON.SchoolSchedule.model.Room;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.model.Therapist;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Nazwy sal, terapeutów i uczniów potrzebne do eksportu, wczytane z góry. Każdy indeks to
+ * posortowane id (long[]) z równoległą tablicą nazw, wyszukiwane binarnie - generowanie arkusza
+ * nie odpytuje już bazy.
+ */
+public final class ExcelLookupContext {
+
+  private final NameIndex rooms;
+  private final NameIndex therapists;
+  private final NameIndex students;
+
+  private ExcelLookupContext(NameIndex rooms, NameIndex therapists, NameIndex students) {
+    this.rooms = rooms;
+    this.therapists = therapists;
+    this.students = students;
+  }
+
+  public static ExcelLookupContext of(
+      Collection<Room> rooms, Collection<Therapist> therapists, Collection<Student> students) {
+    return new ExcelLookupContext(
+        NameIndex.of(rooms, Room::getId, Room::getName),
+        NameIndex.of(therapists, Therapist::getId, t -> t.getFirstName() + " " + t.getLastName()),
+        NameIndex.of(students, Student::getId, s -> s.getFirstName() + " " + s.getLastName()));
+  }
+
+  /** Nazwa sali albo null. */
+  public String roomName(Long id) {
+    return rooms.get(id);
+  }
+
+  /** "Imię Nazwisko" terapeuty albo null. */
+  public String therapistName(Long id) {
+    return therapists.get(id);
+  }
+
+  /** "Imię Nazwisko" ucznia albo null. */
+  public String studentName(Long id) {
+    return students.get(id);
+  }
+
+  private static final class NameIndex {
+
+    private final long[] ids;
+    private final String[] names;
+
+    private NameIndex(long[] ids, String[] names) {
+      this.ids = ids;
+      this.names = names;
+    }
+
+    static <T> NameIndex of(
+        Collection<T> entities, Function<T, Long> id, Function<T, String> name) {
+      List<T> sorted = entities.stream().sorted(Comparator.comparing(id)).toList();
+      long[] ids = new long[sorted.size()];
+      String[] names = new String[sorted.size()];
+      for (int i = 0; i < sorted.size(); i++) {
+        ids[i] = id.apply(sorted.get(i));
+        names[i] = name.apply(sorted.get(i));
+      }
+      return new NameIndex(ids, names);
+    }
+
+    String get(Long id) {
+      if (id == null) return null;
+      int index = Arrays.binarySearch(ids, id);
+      return index >= 0 ? names[index] : null;
+    }
+  }
+}
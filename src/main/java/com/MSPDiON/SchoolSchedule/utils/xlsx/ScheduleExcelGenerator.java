@@ -1,14 +1,22 @@
 package com.MSPDiON.SchoolSchedule.utils.xlsx;
 
 import com.MSPDiON.SchoolSchedule.dto.ScheduleSlotDto;
-import com.MSPDiON.SchoolSchedule.model.Room;
-import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
-import com.MSPDiON.SchoolSchedule.repository.StudentRepository;
-import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -21,9 +29,10 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class ScheduleExcelGenerator {
 
@@ -69,76 +78,110 @@ public class ScheduleExcelGenerator {
     "Godzina", "Poniedziałek", "Wtorek", "Środa", "Czwartek", "Piątek"
   };
 
-  private static int colorIndex = 0;
-
-  private final RoomRepository roomRepository;
-  private final StudentRepository studentRepository;
-  private final TherapistRepository therapistRepository;
-
-  public ScheduleExcelGenerator(
-      RoomRepository roomRepository,
-      StudentRepository studentRepository,
-      TherapistRepository therapistRepository) {
-    this.roomRepository = roomRepository;
-    this.studentRepository = studentRepository;
-    this.therapistRepository = therapistRepository;
+  // Liczba wierszy trzymanych w pamięci przez SXSSF; starsze trafiają do pliku tymczasowego
+  private static final int ROW_WINDOW = 100;
+
+  private final Timer exportTimer;
+  private final DistributionSummary styleCount;
+
+  public ScheduleExcelGenerator(MeterRegistry meterRegistry) {
+    this.exportTimer =
+        Timer.builder("schedule.export.duration")
+            .description("Czas generowania i zapisu eksportu planu")
+            .register(meterRegistry);
+    this.styleCount =
+        DistributionSummary.builder("schedule.export.styles")
+            .description("Liczba stylów komórek w skoroszycie eksportu")
+            .register(meterRegistry);
   }
 
   /**
-   * Generuje Workbook w pamięci na podstawie listy ScheduleSlotDto dla entity
-   * (uczeń/terapeuta/klasa)
+   * Zapisuje plan jednostki (uczeń/terapeuta/klasa) prosto do strumienia. SXSSF trzyma w pamięci
+   * tylko okno wierszy, więc komórki zajęć są najpierw rozplanowane, a wiersze tworzone po kolei.
+   *
+   * <p>Cały stan eksportu (skoroszyt, paleta stylów, kolejny kolor) jest lokalny dla wywołania,
+   * więc eksporty mogą działać równolegle. Nazwy pochodzą wyłącznie z {@code lookup} - metoda nie
+   * odpytuje bazy.
    */
-  public Workbook generateSchedule(
-      List<ScheduleSlotDto> slots, String entityName, String entityType) {
-    Workbook workbook = new XSSFWorkbook();
-    CellStyle headerStyle = createHeaderStyle(workbook);
-    CellStyle cellStyle = createCellStyle(workbook);
-
-    Sheet sheet = createSheetWithName(workbook, entityName);
-
-    createNameRow(sheet, entityName, headerStyle);
-    createHeaderRow(sheet, headerStyle);
-    createTimeRows(sheet, headerStyle, cellStyle);
-    adjustSizes(sheet);
-
-    for (ScheduleSlotDto slot : slots) {
-      addSlot(sheet, slot, workbook, entityType);
+  public void writeSchedule(
+      List<ScheduleSlotDto> slots,
+      ExcelLookupContext lookup,
+      String entityName,
+      String entityType,
+      OutputStream out)
+      throws IOException {
+    long start = System.nanoTime();
+    SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+    workbook.setCompressTempFiles(true);
+    try {
+      Palette palette = Palette.of(workbook);
+
+      Sheet sheet = createSheetWithName(workbook, entityName);
+      Map<Integer, Map<Integer, Placement>> placements =
+          placeSlots(sheet, slots, lookup, palette, entityType);
+
+      createNameRow(sheet, entityName, palette.header());
+      createHeaderRow(sheet, palette.header());
+      createTimeRows(sheet, palette.header(), palette.cell(), placements);
+      adjustSizes(sheet);
+
+      workbook.write(out);
+    } finally {
+      int styles = workbook.getNumCellStyles();
+      workbook.dispose();
+      workbook.close();
+
+      long took = System.nanoTime() - start;
+      exportTimer.record(took, TimeUnit.NANOSECONDS);
+      styleCount.record(styles);
+      log.debug(
+          "Eksport planu {}: {} slotów, {} stylów, {} ms",
+          entityName,
+          slots.size(),
+          styles,
+          TimeUnit.NANOSECONDS.toMillis(took));
     }
-
-    return workbook;
   }
 
-  private void addSlot(Sheet sheet, ScheduleSlotDto slotDto, Workbook workbook, String entityType) {
-    DayOfWeek day = mapIntToDayOfWeek(slotDto.getDayOfWeek());
-    if (day == null) return;
-
-    LocalTime start = LocalTime.parse(slotDto.getStartTime(), TIME_FORMATTER);
-    LocalTime end = LocalTime.parse(slotDto.getEndTime(), TIME_FORMATTER);
-    int[] rows = calculateRowsForTime(start, end);
-    int dayColumn = mapDayToColumn(day);
-    CellStyle style = createMeetingCellStyle(workbook);
-
-    for (int r = rows[0]; r <= rows[1]; r++) {
-      Row row = sheet.getRow(r);
-      if (row == null) row = sheet.createRow(r);
-
-      Cell cell = row.getCell(dayColumn);
-      if (cell == null) cell = row.createCell(dayColumn);
-      cell.setCellStyle(style);
-
-      if (r == rows[0]) {
-        String text = buildCellText(slotDto, entityType);
-        cell.setCellValue(text);
+  // Wiersz -> kolumna -> styl i tekst zajęć; późniejszy slot nadpisuje styl jak wcześniej
+  private Map<Integer, Map<Integer, Placement>> placeSlots(
+      Sheet sheet,
+      List<ScheduleSlotDto> slots,
+      ExcelLookupContext lookup,
+      Palette palette,
+      String entityType) {
+    Map<Integer, Map<Integer, Placement>> placements = new TreeMap<>();
+    int colorIndex = 0;
+    for (ScheduleSlotDto slotDto : slots) {
+      DayOfWeek day = mapIntToDayOfWeek(slotDto.getDayOfWeek());
+      if (day == null) continue;
+
+      LocalTime start = LocalTime.parse(slotDto.getStartTime(), TIME_FORMATTER);
+      LocalTime end = LocalTime.parse(slotDto.getEndTime(), TIME_FORMATTER);
+      int[] rows = calculateRowsForTime(start, end);
+      int dayColumn = mapDayToColumn(day);
+      CellStyle style = palette.meeting(colorIndex++);
+
+      for (int r = rows[0]; r <= rows[1]; r++) {
+        Placement placement =
+            placements
+                .computeIfAbsent(r, k -> new HashMap<>())
+                .computeIfAbsent(dayColumn, k -> new Placement());
+        placement.style = style;
+        if (r == rows[0]) placement.text = buildCellText(slotDto, start, end, lookup, entityType);
       }
-    }
 
-    sheet.addMergedRegion(new CellRangeAddress(rows[0], rows[1], dayColumn, dayColumn));
+      sheet.addMergedRegion(new CellRangeAddress(rows[0], rows[1], dayColumn, dayColumn));
+    }
+    return placements;
   }
 
-  private String buildCellText(ScheduleSlotDto slotDto, String entityType) {
-    LocalTime start = LocalTime.parse(slotDto.getStartTime(), TIME_FORMATTER);
-    LocalTime end = LocalTime.parse(slotDto.getEndTime(), TIME_FORMATTER);
-
+  private String buildCellText(
+      ScheduleSlotDto slotDto,
+      LocalTime start,
+      LocalTime end,
+      ExcelLookupContext lookup,
+      String entityType) {
     StringBuilder text = new StringBuilder();
     text.append(slotDto.getTitle()).append("\n");
     text.append("Godz.: ")
@@ -147,45 +190,35 @@ public class ScheduleExcelGenerator {
         .append(end.format(TIME_FORMATTER))
         .append("\n");
 
-    text.append("Sala: ").append(fetchRoomName(slotDto)).append("\n");
+    text.append("Sala: ").append(roomName(slotDto, lookup)).append("\n");
 
     if ("student".equalsIgnoreCase(entityType)) {
-      text.append("Terapeuta: ").append(fetchTherapistName(slotDto)).append("\n");
+      text.append("Terapeuta: ").append(therapistName(slotDto, lookup)).append("\n");
     } else if ("therapist".equalsIgnoreCase(entityType)) {
-      text.append("Uczniowie: ").append(fetchStudentNames(slotDto)).append("\n");
+      text.append("Uczniowie: ").append(studentNames(slotDto, lookup)).append("\n");
     } else if ("class".equalsIgnoreCase(entityType)) {
-      text.append("Terapeuta: ").append(fetchTherapistName(slotDto)).append("\n");
+      text.append("Terapeuta: ").append(therapistName(slotDto, lookup)).append("\n");
     }
 
     return text.toString();
   }
 
-  private String fetchRoomName(ScheduleSlotDto slotDto) {
-    if (slotDto.getRoomId() == null) return "Brak sali";
-    return roomRepository.findById(slotDto.getRoomId()).map(Room::getName).orElse("Brak sali");
+  private String roomName(ScheduleSlotDto slotDto, ExcelLookupContext lookup) {
+    String name = lookup.roomName(slotDto.getRoomId());
+    return name != null ? name : "Brak sali";
   }
 
-  private String fetchTherapistName(ScheduleSlotDto slotDto) {
-    if (slotDto.getTherapistId() == null) return "Brak terapeuty";
-    return therapistRepository
-        .findById(slotDto.getTherapistId())
-        .map(t -> t.getFirstName() + " " + t.getLastName())
-        .orElse("Brak terapeuty");
+  private String therapistName(ScheduleSlotDto slotDto, ExcelLookupContext lookup) {
+    String name = lookup.therapistName(slotDto.getTherapistId());
+    return name != null ? name : "Brak terapeuty";
   }
 
-  private String fetchStudentNames(ScheduleSlotDto slotDto) {
+  private String studentNames(ScheduleSlotDto slotDto, ExcelLookupContext lookup) {
     if (slotDto.getStudentIds() == null || slotDto.getStudentIds().isEmpty()) return "Brak uczniów";
     return slotDto.getStudentIds().stream()
         .limit(MAX_STUDENTS_DISPLAY)
-        .map(
-            id ->
-                studentRepository
-                    .findById(id)
-                    .map(s -> s.getFirstName() + " " + s.getLastName())
-                    .orElse("Nieznany"))
-        .toList()
-        .toString()
-        .replaceAll("[\\[\\]]", "");
+        .map(id -> Objects.requireNonNullElse(lookup.studentName(id), "Nieznany"))
+        .collect(Collectors.joining(", "));
   }
 
   private void createNameRow(Sheet sheet, String name, CellStyle style) {
@@ -205,11 +238,16 @@ public class ScheduleExcelGenerator {
     }
   }
 
-  private void createTimeRows(Sheet sheet, CellStyle headerStyle, CellStyle cellStyle) {
+  private void createTimeRows(
+      Sheet sheet,
+      CellStyle headerStyle,
+      CellStyle cellStyle,
+      Map<Integer, Map<Integer, Placement>> placements) {
     LocalTime time = START_TIME;
     int rowIndex = 2;
     while (!time.isAfter(END_TIME)) {
       Row row = sheet.createRow(rowIndex);
+      row.setHeightInPoints(ROW_HEIGHT_POINTS);
       Cell hourCell = row.createCell(0);
       hourCell.setCellValue(time.format(TIME_FORMATTER));
       hourCell.setCellStyle(headerStyle);
@@ -218,13 +256,33 @@ public class ScheduleExcelGenerator {
         Cell cell = row.createCell(c);
         cell.setCellStyle(cellStyle);
       }
+      fillPlacements(row, placements.get(rowIndex));
 
       time = time.plusMinutes(TIME_STEP_MINUTES);
       rowIndex++;
     }
+
+    // Zajęcia wychodzące poza siatkę godzin dostają własne wiersze
+    for (Map.Entry<Integer, Map<Integer, Placement>> entry : placements.entrySet()) {
+      if (entry.getKey() < rowIndex) continue;
+      Row row = sheet.createRow(entry.getKey());
+      row.setHeightInPoints(ROW_HEIGHT_POINTS);
+      fillPlacements(row, entry.getValue());
+    }
+  }
+
+  private void fillPlacements(Row row, Map<Integer, Placement> byColumn) {
+    if (byColumn == null) return;
+    byColumn.forEach(
+        (column, placement) -> {
+          Cell cell = row.getCell(column);
+          if (cell == null) cell = row.createCell(column);
+          cell.setCellStyle(placement.style);
+          if (placement.text != null) cell.setCellValue(placement.text);
+        });
   }
 
-  private CellStyle createHeaderStyle(Workbook wb) {
+  private static CellStyle createHeaderStyle(Workbook wb) {
     CellStyle style = wb.createCellStyle();
     Font font = wb.createFont();
     font.setBold(true);
@@ -238,7 +296,7 @@ public class ScheduleExcelGenerator {
     return style;
   }
 
-  private CellStyle createCellStyle(Workbook wb) {
+  private static CellStyle createCellStyle(Workbook wb) {
     CellStyle style = wb.createCellStyle();
     style.setAlignment(HorizontalAlignment.CENTER);
     style.setVerticalAlignment(VerticalAlignment.CENTER);
@@ -246,19 +304,18 @@ public class ScheduleExcelGenerator {
     return style;
   }
 
-  private CellStyle createMeetingCellStyle(Workbook wb) {
+  private static CellStyle createMeetingCellStyle(Workbook wb, IndexedColors color) {
     CellStyle style = wb.createCellStyle();
     style.setAlignment(HorizontalAlignment.CENTER);
     style.setVerticalAlignment(VerticalAlignment.CENTER);
-    style.setFillForegroundColor(COLORS[colorIndex % COLORS.length].getIndex());
+    style.setFillForegroundColor(color.getIndex());
     style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
     style.setWrapText(true);
     addBorders(style);
-    colorIndex++;
     return style;
   }
 
-  private void addBorders(CellStyle style) {
+  private static void addBorders(CellStyle style) {
     style.setBorderBottom(BorderStyle.THIN);
     style.setBorderTop(BorderStyle.THIN);
     style.setBorderLeft(BorderStyle.THIN);
@@ -308,13 +365,30 @@ public class ScheduleExcelGenerator {
     for (int c = 1; c <= NUMBER_OF_DAYS; c++) {
       sheet.setColumnWidth(c, DAY_COLUMN_WIDTH);
     }
-    for (int r = 2; r <= sheet.getLastRowNum(); r++) {
-      Row row = sheet.getRow(r);
-      if (row != null) row.setHeightInPoints(ROW_HEIGHT_POINTS);
-    }
   }
 
   private Sheet createSheetWithName(Workbook workbook, String entityName) {
     return workbook.createSheet(SHEET_NAME + " " + entityName);
   }
+
+  /** Stała paleta stylów jednego skoroszytu: nagłówek, pusta komórka i po jednym na kolor zajęć. */
+  private record Palette(CellStyle header, CellStyle cell, CellStyle[] meetings) {
+
+    static Palette of(Workbook wb) {
+      CellStyle[] meetings = new CellStyle[COLORS.length];
+      for (int i = 0; i < COLORS.length; i++) {
+        meetings[i] = createMeetingCellStyle(wb, COLORS[i]);
+      }
+      return new Palette(createHeaderStyle(wb), createCellStyle(wb), meetings);
+    }
+
+    CellStyle meeting(int index) {
+      return meetings[index % meetings.length];
+    }
+  }
+
+  private static final class Placement {
+    CellStyle style;
+    String text;
+  }
 }
@@ -0,0 +1,14 @@
+CREATE INDEX IF NOT EXISTS idx_schedule_slot_therapist_day_time
+    ON schedule_slot (therapist_id, day_of_week, start_time, end_time)
+    INCLUDE (valid_from, valid_to);
+
+CREATE INDEX IF NOT EXISTS idx_schedule_slot_room_day_time
+    ON schedule_slot (room_id, day_of_week, start_time, end_time)
+    INCLUDE (valid_from, valid_to);
+
+CREATE INDEX IF NOT EXISTS idx_schedule_slot_class_day
+    ON schedule_slot (student_class_id, day_of_week)
+    INCLUDE (valid_from, valid_to);
+
+CREATE INDEX IF NOT EXISTS idx_schedule_slot_students_student
+    ON schedule_slot_students (student_id, schedule_slot_id);
@@ -0,0 +1,94 @@
+-- Baza danych jako ostateczny arbiter konfliktów: terapeuta, sala i uczeń nie mogą mieć dwóch
+-- slotów nachodzących na siebie w tygodniu i w okresie obowiązywania.
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Zakres minut od początku tygodnia (poniedziałek 00:00), półotwarty [start, koniec)
+CREATE OR REPLACE FUNCTION schedule_week_range(day VARCHAR, start_time TIME, end_time TIME)
+    RETURNS int4range
+    LANGUAGE sql
+    IMMUTABLE
+AS
+$$
+SELECT int4range(
+               offs * 1440 + (EXTRACT(EPOCH FROM start_time) / 60)::int,
+               offs * 1440 + (EXTRACT(EPOCH FROM end_time) / 60)::int)
+FROM (SELECT CASE day
+                 WHEN 'MONDAY' THEN 0
+                 WHEN 'TUESDAY' THEN 1
+                 WHEN 'WEDNESDAY' THEN 2
+                 WHEN 'THURSDAY' THEN 3
+                 WHEN 'FRIDAY' THEN 4
+                 WHEN 'SATURDAY' THEN 5
+                 WHEN 'SUNDAY' THEN 6
+                 END AS offs) d
+$$;
+
+ALTER TABLE schedule_slot
+    ADD COLUMN week_range int4range
+        GENERATED ALWAYS AS (schedule_week_range(day_of_week, start_time, end_time)) STORED,
+    ADD COLUMN validity daterange
+        GENERATED ALWAYS AS (daterange(valid_from, valid_to, '[]')) STORED;
+
+ALTER TABLE schedule_slot
+    ADD CONSTRAINT ex_schedule_slot_therapist
+        EXCLUDE USING gist (therapist_id WITH =, week_range WITH &&, validity WITH &&),
+    ADD CONSTRAINT ex_schedule_slot_room
+        EXCLUDE USING gist (room_id WITH =, week_range WITH &&, validity WITH &&);
+
+-- Uczniowie: zakresy są kopiowane do tabeli łączącej i utrzymywane triggerami
+ALTER TABLE schedule_slot_students
+    ADD COLUMN week_range int4range,
+    ADD COLUMN validity daterange;
+
+UPDATE schedule_slot_students sss
+SET week_range = s.week_range,
+    validity   = s.validity
+FROM schedule_slot s
+WHERE s.id = sss.schedule_slot_id;
+
+CREATE OR REPLACE FUNCTION schedule_slot_students_fill_ranges()
+    RETURNS trigger
+    LANGUAGE plpgsql
+AS
+$$
+BEGIN
+    SELECT s.week_range, s.validity
+    INTO NEW.week_range, NEW.validity
+    FROM schedule_slot s
+    WHERE s.id = NEW.schedule_slot_id;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_schedule_slot_students_fill_ranges
+    BEFORE INSERT OR UPDATE OF schedule_slot_id
+    ON schedule_slot_students
+    FOR EACH ROW
+EXECUTE FUNCTION schedule_slot_students_fill_ranges();
+
+CREATE OR REPLACE FUNCTION schedule_slot_sync_student_ranges()
+    RETURNS trigger
+    LANGUAGE plpgsql
+AS
+$$
+BEGIN
+    UPDATE schedule_slot_students
+    SET week_range = NEW.week_range,
+        validity   = NEW.validity
+    WHERE schedule_slot_id = NEW.id;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_schedule_slot_sync_student_ranges
+    AFTER UPDATE OF day_of_week, start_time, end_time, valid_from, valid_to
+    ON schedule_slot
+    FOR EACH ROW
+EXECUTE FUNCTION schedule_slot_sync_student_ranges();
+
+ALTER TABLE schedule_slot_students
+    ALTER COLUMN week_range SET NOT NULL,
+    ALTER COLUMN validity SET NOT NULL,
+    ADD CONSTRAINT ex_schedule_slot_students_student
+        EXCLUDE USING gist (student_id WITH =, week_range WITH &&, validity WITH &&);
@@ -0,0 +1,6 @@
+-- Listy uczniów/terapeutów ładują dostępności jednym zapytaniem
+-- WHERE entity_type = ? AND entity_id IN (...); typ jako prefiks obsługuje też wyszukiwanie po jednym id.
+DROP INDEX IF EXISTS idx_availability_entity;
+
+CREATE INDEX IF NOT EXISTS idx_availability_type_entity
+    ON availability (entity_type, entity_id);
@@ -0,0 +1,8 @@
+-- Typ podmiotu zapisywany wielkimi literami (V5 przeniósł terapeutów jako 'therapist'), dzięki
+-- czemu wszystkie odczyty używają WHERE entity_type = ? i indeksu idx_availability_type_entity.
+UPDATE availability
+SET entity_type = UPPER(entity_type)
+WHERE entity_type <> UPPER(entity_type);
+
+ALTER TABLE availability
+    ADD CONSTRAINT chk_availability_entity_type_upper CHECK (entity_type = UPPER(entity_type));
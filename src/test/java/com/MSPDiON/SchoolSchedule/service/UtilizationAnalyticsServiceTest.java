@@ -0,0 +1,170 @@
+package com.MSPDiON.SchoolSchedule.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.MSPDiON.SchoolSchedule.dto.FreeWindowDto;
+import com.MSPDiON.SchoolSchedule.dto.ResourceUtilizationDto;
+import com.MSPDiON.SchoolSchedule.dto.UtilizationReportDto;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.model.Room;
+import com.MSPDiON.SchoolSchedule.model.Therapist;
+import com.MSPDiON.SchoolSchedule.repository.RoomRepository;
+import com.MSPDiON.SchoolSchedule.repository.TherapistRepository;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindowCache;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindows;
+import com.MSPDiON.SchoolSchedule.service.index.TimetableReadModel;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UtilizationAnalyticsServiceTest {
+
+  private static final LocalDate SEPTEMBER = LocalDate.of(2025, 9, 1);
+
+  private final TimetableReadModel readModel = mock(TimetableReadModel.class);
+  private final AvailabilityWindowCache availabilityCache = mock(AvailabilityWindowCache.class);
+  private UtilizationAnalyticsService service;
+
+  @BeforeEach
+  void setUp() {
+    RoomRepository rooms = mock(RoomRepository.class);
+    TherapistRepository therapists = mock(TherapistRepository.class);
+    when(rooms.findAll()).thenReturn(List.of(Room.builder().id(1L).name("Sala 1").build()));
+    when(therapists.findAll())
+        .thenReturn(
+            List.of(Therapist.builder().id(1L).firstName("Anna").lastName("Nowak").build()));
+    when(availabilityCache.get(ResourceType.THERAPIST, 1L)).thenReturn(AvailabilityWindows.NONE);
+    service = new UtilizationAnalyticsService(readModel, availabilityCache, rooms, therapists);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  void overlappingSlotsAreCountedOnceWithPeakAndGaps() {
+    when(readModel.allSlots())
+        .thenReturn(
+            List.of(
+                slot(1L, DayOfWeek.MONDAY, 8, 0, 9, 0, SEPTEMBER, null),
+                slot(2L, DayOfWeek.MONDAY, 8, 30, 9, 30, SEPTEMBER, null),
+                slot(3L, DayOfWeek.MONDAY, 9, 30, 10, 0, SEPTEMBER, null),
+                slot(4L, DayOfWeek.MONDAY, 11, 0, 12, 0, SEPTEMBER, null)));
+
+    ResourceUtilizationDto room = room(service.getUtilization(SEPTEMBER));
+
+    // 8:00-10:00 bez przerwy (9:30 styka się z 9:30) i 11:00-12:00
+    assertThat(room.getBookedMinutes()).isEqualTo(180);
+    assertThat(room.getPeakConcurrency()).isEqualTo(2);
+    assertThat(room.getIdleMinutes()).isEqualTo(60);
+    assertThat(room.getIdleGaps())
+        .extracting(FreeWindowDto::getStartTime, FreeWindowDto::getEndTime)
+        .containsExactly(tuple("10:00", "11:00"));
+  }
+
+  @Test
+  void touchingSlotsAreNotConcurrent() {
+    when(readModel.allSlots())
+        .thenReturn(
+            List.of(
+                slot(1L, DayOfWeek.TUESDAY, 8, 0, 9, 0, SEPTEMBER, null),
+                slot(2L, DayOfWeek.TUESDAY, 9, 0, 10, 0, SEPTEMBER, null)));
+
+    ResourceUtilizationDto room = room(service.getUtilization(SEPTEMBER));
+
+    assertThat(room.getBookedMinutes()).isEqualTo(120);
+    assertThat(room.getPeakConcurrency()).isEqualTo(1);
+    assertThat(room.getIdleGaps()).isEmpty();
+  }
+
+  @Test
+  void gapsAreComputedPerDay() {
+    when(readModel.allSlots())
+        .thenReturn(
+            List.of(
+                slot(1L, DayOfWeek.MONDAY, 8, 0, 9, 0, SEPTEMBER, null),
+                slot(2L, DayOfWeek.TUESDAY, 10, 0, 11, 0, SEPTEMBER, null)));
+
+    ResourceUtilizationDto room = room(service.getUtilization(SEPTEMBER));
+
+    assertThat(room.getBookedMinutes()).isEqualTo(120);
+    assertThat(room.getIdleMinutes()).isZero();
+  }
+
+  @Test
+  void slotsOutsideValidityAreIgnored() {
+    when(readModel.allSlots())
+        .thenReturn(
+            List.of(
+                slot(1L, DayOfWeek.MONDAY, 8, 0, 9, 0, SEPTEMBER, SEPTEMBER.plusDays(30)),
+                slot(2L, DayOfWeek.MONDAY, 10, 0, 11, 0, SEPTEMBER.plusDays(60), null)));
+
+    ResourceUtilizationDto room = room(service.getUtilization(SEPTEMBER.plusDays(45)));
+
+    assertThat(room.getBookedMinutes()).isZero();
+    assertThat(room.getPeakConcurrency()).isZero();
+  }
+
+  @Test
+  void therapistUtilizationIsRelativeToAvailability() {
+    when(readModel.allSlots())
+        .thenReturn(List.of(slot(1L, DayOfWeek.MONDAY, 8, 0, 9, 0, SEPTEMBER, null)));
+    when(availabilityCache.get(ResourceType.THERAPIST, 1L))
+        .thenReturn(
+            AvailabilityWindows.of(
+                List.of(
+                    Availability.builder()
+                        .entityId(1L)
+                        .entityType("THERAPIST")
+                        .dayOfWeek(1)
+                        .startTime(LocalTime.of(8, 0))
+                        .endTime(LocalTime.of(12, 0))
+                        .build())));
+
+    UtilizationReportDto report = service.getUtilization(SEPTEMBER);
+    ResourceUtilizationDto therapist = report.getTherapists().get(0);
+
+    assertThat(therapist.getAvailableMinutes()).isEqualTo(240);
+    assertThat(therapist.getUtilization()).isEqualTo(0.25);
+    assertThat(room(report).getAvailableMinutes()).isNull();
+  }
+
+  private static ResourceUtilizationDto room(UtilizationReportDto report) {
+    return report.getRooms().get(0);
+  }
+
+  private static ScheduleSlotSnapshot slot(
+      Long id,
+      DayOfWeek day,
+      int startHour,
+      int startMinute,
+      int endHour,
+      int endMinute,
+      LocalDate validFrom,
+      LocalDate validTo) {
+    return new ScheduleSlotSnapshot(
+        id,
+        "Zajęcia",
+        1L,
+        1L,
+        null,
+        Set.of(),
+        day,
+        LocalTime.of(startHour, startMinute),
+        LocalTime.of(endHour, endMinute),
+        validFrom,
+        validTo,
+        true);
+  }
+}
@@ -0,0 +1,151 @@
+package com.MSPDiON.SchoolSchedule.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import com.MSPDiON.SchoolSchedule.repository.ScheduleSlotRepository;
+import com.MSPDiON.SchoolSchedule.utils.WeekMask;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+class OccupancyBitmapCacheTest {
+
+  private static final LocalDate SEPTEMBER = LocalDate.of(2025, 9, 1);
+  private static final LocalDate JANUARY = LocalDate.of(2026, 1, 5);
+
+  private OccupancyBitmapCache cache;
+
+  @BeforeEach
+  void setUp() {
+    ScheduleSlotRepository repository = mock(ScheduleSlotRepository.class);
+    when(repository.findAllWithStudents()).thenReturn(List.of());
+    cache = new OccupancyBitmapCache(repository, new SimpleMeterRegistry(), true);
+    cache.rebuild();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void occupiedCellsAreRoundedOutwardToFiveMinutes() {
+    cache.onSlotChanged(created(slot(1L, 8, 2, 8, 58, SEPTEMBER, null)));
+
+    long[] bits = occupied(ResourceType.THERAPIST, 1L, SEPTEMBER);
+
+    // 8:00-9:00 = 12 komórek
+    assertThat(WeekMask.cardinality(bits)).isEqualTo(12);
+  }
+
+  @Test
+  void occupiedOnlyCountsSlotsValidOnTheDate() {
+    cache.onSlotChanged(created(slot(1L, 8, 0, 9, 0, SEPTEMBER, LocalDate.of(2025, 12, 31))));
+    cache.onSlotChanged(created(slot(2L, 10, 0, 11, 0, JANUARY, null)));
+
+    assertThat(WeekMask.cardinality(occupied(ResourceType.ROOM, 1L, SEPTEMBER))).isEqualTo(12);
+    assertThat(WeekMask.cardinality(occupied(ResourceType.ROOM, 1L, JANUARY))).isEqualTo(12);
+    assertThat(WeekMask.cardinality(occupied(ResourceType.ROOM, 1L, SEPTEMBER.minusDays(1))))
+        .isZero();
+  }
+
+  @Test
+  void mayOverlapIsFalseOnlyWithoutSharedCells() {
+    cache.onSlotChanged(created(slot(1L, 8, 0, 9, 0, SEPTEMBER, null)));
+    ScheduleSlotSnapshot overlapping = slot(9L, 8, 30, 9, 30, SEPTEMBER, null);
+    ScheduleSlotSnapshot adjacent = slot(9L, 9, 0, 10, 0, SEPTEMBER, null);
+
+    assertThat(cache.mayOverlap(ResourceType.THERAPIST, 1L, overlapping)).isTrue();
+    assertThat(cache.mayOverlap(ResourceType.THERAPIST, 1L, adjacent)).isFalse();
+    // Inny okres obowiązywania
+    assertThat(
+            cache.mayOverlap(
+                ResourceType.THERAPIST,
+                1L,
+                slot(9L, 8, 30, 9, 30, SEPTEMBER.minusYears(1), SEPTEMBER.minusDays(1))))
+        .isFalse();
+    // Inny terapeuta
+    assertThat(cache.mayOverlap(ResourceType.THERAPIST, 2L, overlapping)).isFalse();
+  }
+
+  @Test
+  void updateMovesAndDeleteFreesCells() {
+    ScheduleSlotSnapshot before = slot(1L, 8, 0, 9, 0, SEPTEMBER, null);
+    ScheduleSlotSnapshot after = slot(1L, 12, 0, 12, 30, SEPTEMBER, null);
+    cache.onSlotChanged(created(before));
+    cache.onSlotChanged(ScheduleSlotChangedEvent.updated(before, after));
+
+    assertThat(WeekMask.cardinality(occupied(ResourceType.THERAPIST, 1L, SEPTEMBER)))
+        .isEqualTo(6);
+
+    cache.onSlotChanged(ScheduleSlotChangedEvent.deleted(after));
+
+    assertThat(WeekMask.cardinality(occupied(ResourceType.THERAPIST, 1L, SEPTEMBER))).isZero();
+  }
+
+  @Test
+  void changeAppliedBeforeCommitIsUndoneOnRollback() {
+    ScheduleSlotSnapshot before = slot(1L, 8, 0, 9, 0, SEPTEMBER, null);
+    cache.onSlotChanged(created(before));
+
+    TransactionSynchronizationManager.initSynchronization();
+    ScheduleSlotSnapshot moved = slot(1L, 12, 0, 13, 0, SEPTEMBER, null);
+    cache.onSlotChanged(ScheduleSlotChangedEvent.updated(before, moved));
+    cache.onSlotChanged(created(slot(2L, 14, 0, 15, 0, SEPTEMBER, null)));
+    TransactionSynchronizationUtils.invokeAfterCompletion(
+        TransactionSynchronizationManager.getSynchronizations(),
+        TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    long[] bits = occupied(ResourceType.THERAPIST, 1L, SEPTEMBER);
+    assertThat(WeekMask.cardinality(bits)).isEqualTo(12);
+    assertThat(WeekMask.intersects(bits, WeekMask.dayBits(LocalTime.of(8, 0), LocalTime.of(9, 0))))
+        .isTrue();
+  }
+
+  private long[] occupied(ResourceType type, Long id, LocalDate date) {
+    return cache.occupied(type, id, DayOfWeek.MONDAY, date).orElseThrow();
+  }
+
+  private static ScheduleSlotChangedEvent created(ScheduleSlotSnapshot slot) {
+    return ScheduleSlotChangedEvent.created(slot);
+  }
+
+  private static ScheduleSlotSnapshot slot(
+      Long id,
+      int startHour,
+      int startMinute,
+      int endHour,
+      int endMinute,
+      LocalDate validFrom,
+      LocalDate validTo) {
+    return new ScheduleSlotSnapshot(
+        id,
+        "Zajęcia",
+        1L,
+        1L,
+        null,
+        Set.of(),
+        DayOfWeek.MONDAY,
+        LocalTime.of(startHour, startMinute),
+        LocalTime.of(endHour, endMinute),
+        validFrom,
+        validTo,
+        false);
+  }
+}
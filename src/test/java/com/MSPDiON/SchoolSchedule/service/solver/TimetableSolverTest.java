@@ -0,0 +1,133 @@
+package com.MSPDiON.SchoolSchedule.service.solver;
+
+import static com.MSPDiON.SchoolSchedule.service.solver.SolverState.UNASSIGNED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.MSPDiON.SchoolSchedule.dto.TherapyDemandDto;
+import com.MSPDiON.SchoolSchedule.model.Availability;
+import com.MSPDiON.SchoolSchedule.model.Room;
+import com.MSPDiON.SchoolSchedule.model.Student;
+import com.MSPDiON.SchoolSchedule.model.Therapist;
+import com.MSPDiON.SchoolSchedule.model.TherapistRole;
+import com.MSPDiON.SchoolSchedule.service.index.AvailabilityWindows;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TimetableSolverTest {
+
+  private static final Duration TIME_LIMIT = Duration.ofMillis(200);
+
+  private final TimetableSolver solver = new TimetableSolver(1);
+
+  @AfterEach
+  void tearDown() {
+    solver.shutdown();
+  }
+
+  @Test
+  void placesAllSessionsThatFitWithoutConflicts() {
+    // Terapeuta dostępny 2 godziny, dwoje uczniów po jednej sesji 45 min
+    SolverProblem problem = problem(2, 1, 45, LocalTime.of(8, 0), LocalTime.of(10, 0));
+
+    TimetableSolver.Solution solution = solver.solve(problem, TIME_LIMIT);
+
+    assertThat(solution.placement()).doesNotContain(UNASSIGNED);
+    assertThat(new SolverState(problem, solution.placement(), solution.room()).isFeasible())
+        .isTrue();
+  }
+
+  @Test
+  void leavesSessionsUnassignedRatherThanOverlapping() {
+    // Trzy sesje po 60 min nie zmieszczą się w 2 godzinach dostępności terapeuty
+    SolverProblem problem = problem(3, 1, 60, LocalTime.of(8, 0), LocalTime.of(10, 0));
+
+    TimetableSolver.Solution solution = solver.solve(problem, TIME_LIMIT);
+
+    assertThat(Arrays.stream(solution.placement()).filter(p -> p != UNASSIGNED).count())
+        .isEqualTo(2);
+    assertThat(new SolverState(problem, solution.placement(), solution.room()).isFeasible())
+        .isTrue();
+  }
+
+  @Test
+  void concurrentSolvesBothSearchDespiteSharedPool() {
+    SolverProblem problem = problem(4, 1, 30, LocalTime.of(8, 0), LocalTime.of(12, 0));
+
+    CompletableFuture<TimetableSolver.Solution> first =
+        CompletableFuture.supplyAsync(() -> solver.solve(problem, TIME_LIMIT));
+    CompletableFuture<TimetableSolver.Solution> second =
+        CompletableFuture.supplyAsync(() -> solver.solve(problem, TIME_LIMIT));
+
+    // Jednowątkowa pula: drugie rozwiązanie czeka na pierwsze, ale i tak dostaje cały budżet
+    assertThat(first.join().iterations()).isPositive();
+    assertThat(second.join().iterations()).isPositive();
+  }
+
+  @Test
+  void therapistWithoutAvailabilityRowsIsUnrestricted() {
+    // Brak okien dostępności = bez ograniczeń, jak w AvailabilityWindowRule
+    SolverProblem problem = problem(2, 1, 45, List.of());
+
+    TimetableSolver.Solution solution = solver.solve(problem, TIME_LIMIT);
+
+    assertThat(solution.placement()).doesNotContain(UNASSIGNED);
+    assertThat(new SolverState(problem, solution.placement(), solution.room()).isFeasible())
+        .isTrue();
+  }
+
+  private static SolverProblem problem(
+      int studentCount, int sessionsPerWeek, int minutes, LocalTime from, LocalTime to) {
+    Availability availability =
+        Availability.builder()
+            .entityId(1L)
+            .entityType("therapist")
+            .dayOfWeek(1)
+            .startTime(from)
+            .endTime(to)
+            .build();
+    return problem(studentCount, sessionsPerWeek, minutes, List.of(availability));
+  }
+
+  private static SolverProblem problem(
+      int studentCount, int sessionsPerWeek, int minutes, List<Availability> availability) {
+    Therapist therapist =
+        Therapist.builder()
+            .id(1L)
+            .firstName("Anna")
+            .lastName("Nowak")
+            .role(TherapistRole.SPEECH_THERAPIST)
+            .departments(List.of())
+            .build();
+    Room room = Room.builder().id(1L).name("101").build();
+    List<Student> students =
+        LongStream.rangeClosed(1, studentCount)
+            .mapToObj(id -> Student.builder().id(id).firstName("Uczeń").lastName("" + id).build())
+            .toList();
+    List<TherapyDemandDto> demands =
+        students.stream()
+            .map(
+                s ->
+                    TherapyDemandDto.builder()
+                        .studentId(s.getId())
+                        .role(TherapistRole.SPEECH_THERAPIST)
+                        .sessionsPerWeek(sessionsPerWeek)
+                        .durationMinutes(minutes)
+                        .build())
+            .toList();
+
+    return SolverProblem.build(
+        demands,
+        students,
+        List.of(therapist),
+        List.of(room),
+        availability,
+        id -> AvailabilityWindows.NONE,
+        List.of());
+  }
+}
@@ -0,0 +1,179 @@
+package com.MSPDiON.SchoolSchedule.service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotChangedEvent;
+import com.MSPDiON.SchoolSchedule.event.ScheduleSlotSnapshot;
+import com.MSPDiON.SchoolSchedule.model.ResourceType;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class ScheduleChangeStreamTest {
+
+  private static final Pattern ID = Pattern.compile("id:(\\S+)");
+  private static final Pattern NAME = Pattern.compile("event:(\\S+)");
+
+  // Bufor na 3 zdarzenia, wysyłka w wątku wywołującym
+  private ScheduleChangeStream stream = new ScheduleChangeStream(3, 1, Runnable::run);
+
+  @AfterEach
+  void tearDown() {
+    stream.shutdown();
+  }
+
+  @Test
+  void liveChangesCarryEpochPrefixedIds() {
+    RecordingEmitter emitter = subscribe(Map.of(), null);
+
+    publish(1L, 7L);
+    publish(2L, 7L);
+
+    assertThat(emitter.ids()).containsExactly(stream.idOf(1), stream.idOf(2));
+    assertThat(emitter.names()).containsOnly("schedule-change");
+  }
+
+  @Test
+  void resumeReplaysMissedChangesAfterBufferWrapsAround() {
+    for (long slot = 1; slot <= 5; slot++) publish(slot, 7L);
+
+    RecordingEmitter emitter = subscribe(Map.of(), stream.idOf(2));
+
+    assertThat(emitter.ids()).containsExactly(stream.idOf(3), stream.idOf(4), stream.idOf(5));
+  }
+
+  @Test
+  void resumeAppliesFiltersAndContinuesLive() {
+    publish(1L, 7L);
+    publish(2L, 8L);
+
+    RecordingEmitter emitter = subscribe(Map.of(ResourceType.THERAPIST, 8L), stream.idOf(0));
+    publish(3L, 7L);
+    publish(4L, 8L);
+
+    assertThat(emitter.ids()).containsExactly(stream.idOf(2), stream.idOf(4));
+  }
+
+  @Test
+  void resumeFromLatestIdReplaysNothing() {
+    publish(1L, 7L);
+
+    RecordingEmitter emitter = subscribe(Map.of(), stream.idOf(1));
+
+    assertThat(emitter.ids()).isEmpty();
+  }
+
+  @Test
+  void resetWhenResumePointFellOutOfBuffer() {
+    for (long slot = 1; slot <= 5; slot++) publish(slot, 7L);
+
+    RecordingEmitter emitter = subscribe(Map.of(), stream.idOf(1));
+
+    assertThat(emitter.names()).containsExactly("reset");
+    assertThat(emitter.ids()).containsExactly(stream.idOf(5));
+  }
+
+  @Test
+  void resetForIdFromAnotherEpochOrUnreadable() {
+    publish(1L, 7L);
+
+    assertThat(subscribe(Map.of(), "0-0").names()).containsExactly("reset");
+    assertThat(subscribe(Map.of(), "abc").names()).containsExactly("reset");
+    assertThat(subscribe(Map.of(), stream.idOf(2)).names()).containsExactly("reset");
+  }
+
+  @Test
+  void slowSubscriberDoesNotDelayOthers() throws Exception {
+    stream = new ScheduleChangeStream(3, 1, Executors.newVirtualThreadPerTaskExecutor());
+    CountDownLatch release = new CountDownLatch(1);
+    BlockingQueue<String> fastEvents = new LinkedBlockingQueue<>();
+
+    stream.subscribe(Map.of(), null, () -> new RecordingEmitter(release));
+    stream.subscribe(Map.of(), null, () -> new RecordingEmitter(null, fastEvents));
+    publish(1L, 7L);
+
+    assertThat(fastEvents.poll(5, TimeUnit.SECONDS)).contains("id:" + stream.idOf(1));
+    release.countDown();
+  }
+
+  private RecordingEmitter subscribe(Map<ResourceType, Long> filters, String resumeAfter) {
+    return (RecordingEmitter)
+        stream.subscribe(filters, resumeAfter, () -> new RecordingEmitter(null));
+  }
+
+  private void publish(Long slotId, Long therapistId) {
+    stream.onSlotChanged(
+        ScheduleSlotChangedEvent.created(
+            new ScheduleSlotSnapshot(
+                slotId,
+                "Zajęcia",
+                therapistId,
+                1L,
+                null,
+                Set.of(),
+                DayOfWeek.MONDAY,
+                LocalTime.of(8, 0),
+                LocalTime.of(9, 0),
+                null,
+                null,
+                true)));
+  }
+
+  /** Zapisuje wysłane zdarzenia jako tekst SSE; opcjonalnie wstrzymuje wysyłkę do zwolnienia. */
+  private static final class RecordingEmitter extends SseEmitter {
+
+    private final CountDownLatch release;
+    private final BlockingQueue<String> sent;
+
+    RecordingEmitter(CountDownLatch release) {
+      this(release, new LinkedBlockingQueue<>());
+    }
+
+    RecordingEmitter(CountDownLatch release, BlockingQueue<String> sent) {
+      this.release = release;
+      this.sent = sent;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      if (release != null) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      StringBuilder text = new StringBuilder();
+      builder.build().forEach(part -> text.append(part.getData()));
+      sent.add(text.toString());
+    }
+
+    List<String> ids() {
+      return extract(ID);
+    }
+
+    List<String> names() {
+      return extract(NAME);
+    }
+
+    private List<String> extract(Pattern pattern) {
+      return sent.stream()
+          .map(pattern::matcher)
+          .filter(Matcher::find)
+          .map(m -> m.group(1))
+          .toList();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.MSPDiON.SchoolSchedule.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class WeekMaskTest {
+
+  @Test
+  void freeRoundsInwardAndOccupyRoundsOutward() {
+    WeekMask mask = new WeekMask();
+    mask.free(1, LocalTime.of(8, 2), LocalTime.of(10, 58));
+    mask.occupy(1, LocalTime.of(9, 1), LocalTime.of(9, 14));
+
+    assertThat(mask.windows(1, 5))
+        .containsExactly(
+            new WeekMask.Window(1, LocalTime.of(8, 5), LocalTime.of(9, 0)),
+            new WeekMask.Window(1, LocalTime.of(9, 15), LocalTime.of(10, 55)));
+  }
+
+  @Test
+  void windowsShorterThanDurationAreSkipped() {
+    WeekMask mask = new WeekMask();
+    mask.free(3, LocalTime.of(8, 0), LocalTime.of(8, 30));
+    mask.free(3, LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+    assertThat(mask.windows(3, 45))
+        .containsExactly(new WeekMask.Window(3, LocalTime.of(9, 0), LocalTime.of(10, 0)));
+    assertThat(mask.windows(2, 5)).isEmpty();
+  }
+
+  @Test
+  void andKeepsOnlyCommonFreeCells() {
+    WeekMask first = new WeekMask();
+    first.free(1, LocalTime.of(8, 0), LocalTime.of(12, 0));
+    WeekMask second = WeekMask.allFree();
+    second.occupy(1, LocalTime.of(0, 0), LocalTime.of(10, 0));
+
+    first.and(second);
+
+    assertThat(first.windows(1, 5))
+        .containsExactly(new WeekMask.Window(1, LocalTime.of(10, 0), LocalTime.of(12, 0)));
+  }
+
+  @Test
+  void allFreeDayEndsAtEndOfDay() {
+    assertThat(WeekMask.allFree().windows(7, 60))
+        .containsExactly(new WeekMask.Window(7, LocalTime.MIDNIGHT, LocalTime.MAX));
+  }
+
+  @Test
+  void dayBitsIntersectOnlyWhenCellsShared() {
+    long[] morning = WeekMask.dayBits(LocalTime.of(8, 0), LocalTime.of(9, 0));
+    long[] adjacent = WeekMask.dayBits(LocalTime.of(9, 0), LocalTime.of(9, 30));
+    long[] overlapping = WeekMask.dayBits(LocalTime.of(8, 57), LocalTime.of(9, 30));
+
+    assertThat(WeekMask.intersects(morning, adjacent)).isFalse();
+    assertThat(WeekMask.intersects(morning, overlapping)).isTrue();
+    assertThat(WeekMask.cardinality(morning)).isEqualTo(12);
+  }
+}